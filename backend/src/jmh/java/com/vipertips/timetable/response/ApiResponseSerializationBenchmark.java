@@ -0,0 +1,78 @@
+package com.vipertips.timetable.response;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.vipertips.timetable.dto.LessonDto;
+import com.vipertips.timetable.dto.LessonRow;
+
+/**
+ * JSON encoding of the paged lesson listing, the body of GET /api/lesson/teacher: the former
+ * {@code Page<LessonDto>} body against the self-writing {@link LessonPage}. The mapper is built the way
+ * Spring Boot builds its default one, Java time module included.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(2)
+public class ApiResponseSerializationBenchmark {
+
+	@Param({ "10", "100", "1000" })
+	private int pageSize;
+
+	private ObjectMapper objectMapper;
+	private ApiResponse<Page<LessonDto>> response;
+	private ApiResponse<LessonPage> compactResponse;
+
+	@Setup
+	public void setUp() {
+		objectMapper = Jackson2ObjectMapperBuilder.json().build();
+		LocalDateTime start = LocalDateTime.of(2025, 6, 2, 8, 0);
+		List<LessonDto> lessons = new ArrayList<>(pageSize);
+		List<LessonRow> rows = new ArrayList<>(pageSize);
+		for (int i = 0; i < pageSize; i++) {
+			lessons.add(new LessonDto(i + 1, "Lesson " + i, "Chapter " + (i % 12), start.plusHours(i),
+					start.plusHours(i).plusMinutes(45)));
+			rows.add(new LessonRow(i + 1, "Lesson " + i, "Chapter " + (i % 12), start.plusHours(i),
+					start.plusHours(i).plusMinutes(45)));
+		}
+		Page<LessonDto> page = new PageImpl<>(lessons,
+				PageRequest.of(0, pageSize, Sort.by("startTime").descending()), pageSize * 20L);
+		response = new ApiResponse<>("Lesson(s) retrieved successfully", true, page);
+		compactResponse = new ApiResponse<>("Lesson(s) retrieved successfully", true,
+				new LessonPage(rows, 0, pageSize, pageSize * 20L));
+	}
+
+	@Benchmark
+	public byte[] serialize() throws JsonProcessingException {
+		return objectMapper.writeValueAsBytes(response);
+	}
+
+	@Benchmark
+	public byte[] serializeCompact() throws JsonProcessingException {
+		return objectMapper.writeValueAsBytes(compactResponse);
+	}
+}
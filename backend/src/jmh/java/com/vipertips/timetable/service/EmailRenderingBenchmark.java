@@ -0,0 +1,76 @@
+package com.vipertips.timetable.service;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.vipertips.timetable.service.MailQueue.OutboundEmail;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Template rendering on its own and the whole {@link EmailSender} reminder path up to the hand-over
+ * to the mail queue, which is replaced by a sink so no SMTP server is involved.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(2)
+public class EmailRenderingBenchmark {
+
+	private EmailTemplates emailTemplates;
+	private EmailSender emailSender;
+	private Map<String, String> values;
+	// keeps the queued message reachable so the send cannot be optimised away
+	private OutboundEmail lastQueued;
+
+	@Setup
+	public void setUp() {
+		emailTemplates = new EmailTemplates();
+		emailTemplates.load();
+
+		MailQueue sink = new MailQueue() {
+			@Override
+			public boolean enqueue(OutboundEmail email) {
+				lastQueued = email;
+				return true;
+			}
+		};
+		emailSender = new EmailSender();
+		ReflectionTestUtils.setField(emailSender, "mailQueue", sink);
+		ReflectionTestUtils.setField(emailSender, "emailTemplates", emailTemplates);
+		ReflectionTestUtils.setField(emailSender, "meterRegistry", new SimpleMeterRegistry());
+
+		values = Map.of(
+				"subject", "Timetable Pro - Lesson Reminder",
+				"username", "Viper",
+				"message", "Hey Viper, your lesson <strong>Math 101</strong> starts at <strong>2:00 PM</strong>.",
+				"actionLink", "https://timetable.zim",
+				"actionText", "View Timetable",
+				"appName", "Timetable Pro");
+	}
+
+	@Benchmark
+	public String renderTemplate() {
+		return emailTemplates.render(EmailTemplates.REMINDER, values);
+	}
+
+	@Benchmark
+	public OutboundEmail sendLessonReminderEmail() {
+		emailSender.sendLessonReminderEmail("teacher@timetable.zim", "Viper", "Math 101", "2:00 PM", 30);
+		return lastQueued;
+	}
+}
@@ -0,0 +1,82 @@
+package com.vipertips.timetable.service;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.vipertips.timetable.model.User;
+import com.vipertips.timetable.model.User.Role;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Token issuing and the per-request username lookup. The lookup is measured both on a token the
+ * claims cache has seen and on fresh tokens, which pay for the signature check.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(2)
+public class JwtServiceBenchmark {
+
+	// 256-bit test key, base64 like jwt.secret
+	private static final String SECRET = "dGhpcy1pcy1hLWJlbmNobWFyay1vbmx5LXNlY3JldC1rZXktMzItYnl0ZXM=";
+	private static final int FRESH_TOKENS = 4096;
+
+	private JwtService jwtService;
+	private User user;
+	private String cachedToken;
+	private String[] freshTokens;
+	private int next;
+
+	@Setup
+	public void setUp() {
+		TokenDenyList denyList = new TokenDenyList();
+		ReflectionTestUtils.setField(denyList, "maxSize", 10_000L);
+		ReflectionTestUtils.setField(denyList, "userTtlHours", 168L);
+		denyList.init();
+
+		jwtService = new JwtService();
+		ReflectionTestUtils.setField(jwtService, "tokenDenyList", denyList);
+		ReflectionTestUtils.setField(jwtService, "meterRegistry", new SimpleMeterRegistry());
+		ReflectionTestUtils.setField(jwtService, "SECRET_KEY", SECRET);
+		// smaller than the fresh token set, so those lookups keep missing the cache
+		ReflectionTestUtils.setField(jwtService, "claimsCacheMaxSize", 1_000L);
+		jwtService.init();
+
+		user = User.builder().userId(42).email("teacher@timetable.zim").role(Role.TEACHER).build();
+		cachedToken = jwtService.generateToken(user);
+		freshTokens = new String[FRESH_TOKENS];
+		for (int i = 0; i < FRESH_TOKENS; i++) {
+			freshTokens[i] = jwtService.generateToken(user);
+		}
+	}
+
+	@Benchmark
+	public String generateToken() {
+		return jwtService.generateToken(user);
+	}
+
+	@Benchmark
+	public String extractUsernameCached() {
+		return jwtService.extractUsername(cachedToken);
+	}
+
+	@Benchmark
+	public String extractUsernameUncached() {
+		next = (next + 1) % FRESH_TOKENS;
+		return jwtService.extractUsername(freshTokens[next]);
+	}
+}
@@ -0,0 +1,70 @@
+package com.vipertips.timetable.service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.vipertips.timetable.dto.LessonDto;
+import com.vipertips.timetable.model.Lesson;
+import com.vipertips.timetable.model.Lesson.Status;
+import com.vipertips.timetable.model.User;
+import com.vipertips.timetable.model.User.Role;
+
+/**
+ * Entity to DTO mapping over a page of lessons, as done for every write response and batch result.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(2)
+public class LessonMappingBenchmark {
+
+	@Param({ "100", "1000", "10000" })
+	private int pageSize;
+
+	private LessonService lessonService;
+	private List<Lesson> lessons;
+
+	@Setup
+	public void setUp() {
+		lessonService = new LessonService();
+		User teacher = User.builder().userId(42).email("teacher@timetable.zim").role(Role.TEACHER).build();
+		LocalDateTime start = LocalDateTime.of(2025, 6, 2, 8, 0);
+		lessons = new ArrayList<>(pageSize);
+		for (int i = 0; i < pageSize; i++) {
+			lessons.add(Lesson.builder()
+					.lessonId(i + 1)
+					.title("Lesson " + i)
+					.lessonAbout("Chapter " + (i % 12))
+					.startTime(start.plusHours(i))
+					.endTime(start.plusHours(i).plusMinutes(45))
+					.status(Status.PENDING)
+					.user(teacher)
+					.build());
+		}
+	}
+
+	@Benchmark
+	public List<LessonDto> mapPage() {
+		List<LessonDto> page = new ArrayList<>(lessons.size());
+		for (Lesson lesson : lessons) {
+			page.add(lessonService.mapToDto(lesson));
+		}
+		return page;
+	}
+}
@@ -0,0 +1,66 @@
+package com.vipertips.timetable.loadtest;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Latencies of one operation. Each worker thread owns its recorder, they are merged for the report,
+ * so recording never contends.
+ */
+final class LatencyRecorder {
+
+	private long[] nanos = new long[1024];
+	private int count;
+	private long errors;
+
+	void record(long latencyNanos, boolean ok) {
+		if (count == nanos.length) {
+			nanos = Arrays.copyOf(nanos, count * 2);
+		}
+		nanos[count++] = latencyNanos;
+		if (!ok) {
+			errors++;
+		}
+	}
+
+	void mergeInto(LatencyRecorder total) {
+		for (int i = 0; i < count; i++) {
+			total.record(nanos[i], true);
+		}
+		total.errors += errors;
+	}
+
+	int count() {
+		return count;
+	}
+
+	/**
+	 * Count, errors, throughput and latency percentiles in milliseconds.
+	 */
+	Map<String, Object> summary(double seconds) {
+		long[] sorted = Arrays.copyOf(nanos, count);
+		Arrays.sort(sorted);
+		Map<String, Object> summary = new LinkedHashMap<>();
+		summary.put("count", count);
+		summary.put("errors", errors);
+		summary.put("throughput", round(count / seconds));
+		summary.put("p50", millis(sorted, 0.50));
+		summary.put("p95", millis(sorted, 0.95));
+		summary.put("p99", millis(sorted, 0.99));
+		summary.put("max", count == 0 ? 0.0 : round(sorted[count - 1] / 1_000_000.0));
+		return summary;
+	}
+
+	private static double millis(long[] sorted, double percentile) {
+		if (sorted.length == 0) {
+			return 0.0;
+		}
+		int index = (int) Math.ceil(percentile * sorted.length) - 1;
+		return round(sorted[Math.max(0, index)] / 1_000_000.0);
+	}
+
+	private static double round(double value) {
+		return Math.round(value * 100) / 100.0;
+	}
+}
@@ -0,0 +1,314 @@
+package com.vipertips.timetable.loadtest;
+
+import java.io.File;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.vipertips.timetable.TimetableApplication;
+import com.vipertips.timetable.service.LessonWeekCache;
+import com.vipertips.timetable.service.MailQueue;
+import com.vipertips.timetable.service.ReminderEngine;
+
+/**
+ * Boots the application on the loadtest profile (in-memory H2, SMTP sink), registers a set of
+ * teachers and drives the REST API with a weighted mix of operations from concurrent workers. The
+ * warm-up is discarded; the report gives count, errors, throughput and p50/p95/p99 per operation and
+ * is also written as JSON so runs can be compared.
+ *
+ * Settings are system properties, e.g.
+ * {@code mvn -Ploadtest test-compile exec:java -Dloadtest.concurrency=64 -Dloadtest.mix=week=80,create=20}
+ */
+public class LoadTest {
+
+	private static final String PASSWORD = "LoadTest#2025";
+	private static final Set<String> OPERATIONS = Set.of("login", "week", "create", "update", "profile");
+
+	private final int users = Integer.getInteger("loadtest.users", 20);
+	private final int concurrency = Integer.getInteger("loadtest.concurrency", 16);
+	private final int durationSeconds = Integer.getInteger("loadtest.duration-seconds", 60);
+	private final int warmupSeconds = Integer.getInteger("loadtest.warmup-seconds", 10);
+	private final long reminderTickMs = Long.getLong("loadtest.reminder-tick-ms", 1000);
+	private final String mix = System.getProperty("loadtest.mix", "login=5,week=50,create=15,update=15,profile=15");
+	private final String reportPath = System.getProperty("loadtest.report", "target/loadtest-result.json");
+
+	private final ObjectMapper json = new ObjectMapper().findAndRegisterModules()
+			.disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+	private final HttpClient http = HttpClient.newBuilder()
+			.version(HttpClient.Version.HTTP_1_1)
+			.connectTimeout(Duration.ofSeconds(5))
+			.build();
+	private final List<Teacher> teachers = new ArrayList<>();
+	private final LocalDate weekStart = LessonWeekCache.weekStart(LocalDateTime.now());
+	private final LocalDateTime firstLessonAt = LocalDateTime.now().truncatedTo(ChronoUnit.MINUTES).plusMinutes(3);
+	private String baseUrl;
+
+	private static final class Teacher {
+		final String email;
+		volatile String token;
+		final AtomicInteger nextSlot = new AtomicInteger();
+		final List<Integer> lessonIds = new CopyOnWriteArrayList<>();
+
+		Teacher(String email) {
+			this.email = email;
+		}
+	}
+
+	public static void main(String[] args) throws Exception {
+		// devtools would restart the context in a child class loader halfway through the run
+		System.setProperty("spring.devtools.restart.enabled", "false");
+		new LoadTest().run();
+	}
+
+	void run() throws Exception {
+		Map<String, Integer> weights = parseMix(mix);
+		try (SmtpSink smtp = SmtpSink.start();
+				ConfigurableApplicationContext context = new SpringApplicationBuilder(TimetableApplication.class)
+						.profiles("loadtest")
+						.properties("spring.mail.port=" + smtp.port())
+						.run()) {
+			baseUrl = "http://localhost:" + context.getEnvironment().getProperty("local.server.port");
+			seed();
+			System.out.printf("Seeded %d teachers, running %s with %d workers for %ds (+%ds warm-up)%n",
+					users, weights, concurrency, durationSeconds, warmupSeconds);
+
+			long start = System.nanoTime();
+			long measureFrom = start + warmupSeconds * 1_000_000_000L;
+			long end = measureFrom + durationSeconds * 1_000_000_000L;
+
+			List<Map<String, LatencyRecorder>> perWorker = new CopyOnWriteArrayList<>();
+			List<Thread> workers = new ArrayList<>();
+			for (int i = 0; i < concurrency; i++) {
+				workers.add(Thread.ofVirtual().name("load-" + i).start(() -> {
+					Map<String, LatencyRecorder> recorders = new LinkedHashMap<>();
+					perWorker.add(recorders);
+					drive(weights, measureFrom, end, recorders);
+				}));
+			}
+			Map<String, LatencyRecorder> ticks = new LinkedHashMap<>();
+			perWorker.add(ticks);
+			Thread ticker = Thread.ofPlatform().name("load-reminder-tick").start(
+					() -> tickReminders(context.getBean(ReminderEngine.class), measureFrom, end, ticks.computeIfAbsent(
+							"reminderTick", op -> new LatencyRecorder())));
+			for (Thread worker : workers) {
+				worker.join();
+			}
+			ticker.join();
+
+			report(perWorker, weights, smtp.received(), context.getBean(MailQueue.class).getDeadLetters().size());
+		}
+	}
+
+	private void seed() throws Exception {
+		for (int i = 0; i < users; i++) {
+			Teacher teacher = new Teacher("loadtest-" + i + "@timetable.zim");
+			Map<String, Object> user = Map.of("firstName", "Load", "lastName", "Test " + i, "email", teacher.email,
+					"password", PASSWORD, "subject", i % 2 == 0 ? "Mathematics" : "Physics");
+			expectOk(send("POST", "/api/auth/register", user, null), "register " + teacher.email);
+			login(teacher);
+			for (int l = 0; l < 5; l++) {
+				createLesson(teacher);
+			}
+			teachers.add(teacher);
+		}
+	}
+
+	private void drive(Map<String, Integer> weights, long measureFrom, long end,
+			Map<String, LatencyRecorder> recorders) {
+		int totalWeight = weights.values().stream().mapToInt(Integer::intValue).sum();
+		ThreadLocalRandom random = ThreadLocalRandom.current();
+		while (System.nanoTime() < end) {
+			Teacher teacher = teachers.get(random.nextInt(teachers.size()));
+			String operation = pick(weights, random.nextInt(totalWeight));
+			long started = System.nanoTime();
+			boolean ok;
+			try {
+				ok = execute(operation, teacher);
+			} catch (Exception e) {
+				ok = false;
+			}
+			long finished = System.nanoTime();
+			if (started >= measureFrom) {
+				recorders.computeIfAbsent(operation, op -> new LatencyRecorder()).record(finished - started, ok);
+			}
+		}
+	}
+
+	private boolean execute(String operation, Teacher teacher) throws Exception {
+		return switch (operation) {
+			case "login" -> login(teacher);
+			case "week" -> isOk(send("GET", "/api/lesson/teacher/range?from=" + weekStart.atStartOfDay()
+					+ "&to=" + weekStart.plusWeeks(1).atStartOfDay(), null, teacher.token));
+			case "create" -> createLesson(teacher);
+			case "update" -> updateLesson(teacher);
+			case "profile" -> isOk(send("GET", "/api/teacher", null, teacher.token));
+			default -> throw new IllegalArgumentException("Unknown operation " + operation);
+		};
+	}
+
+	private boolean login(Teacher teacher) throws Exception {
+		HttpResponse<String> response = send("POST", "/api/auth/login",
+				Map.of("email", teacher.email, "password", PASSWORD), null);
+		if (!isOk(response)) {
+			return false;
+		}
+		teacher.token = json.readTree(response.body()).path("data").path("token").asText();
+		return true;
+	}
+
+	private boolean createLesson(Teacher teacher) throws Exception {
+		// one slot per lesson and teacher, so the double-booking check never rejects load traffic
+		LocalDateTime start = firstLessonAt.plusHours(teacher.nextSlot.getAndIncrement());
+		Map<String, Object> lesson = Map.of("title", "Load lesson", "lessonAbout", "Generated by the load test",
+				"startTime", start, "endTime", start.plusMinutes(45));
+		HttpResponse<String> response = send("POST", "/api/lesson", lesson, teacher.token);
+		if (!isOk(response)) {
+			return false;
+		}
+		teacher.lessonIds.add(json.readTree(response.body()).path("data").path("lessonId").asInt());
+		return true;
+	}
+
+	private boolean updateLesson(Teacher teacher) throws Exception {
+		List<Integer> ids = teacher.lessonIds;
+		int lessonId = ids.get(ThreadLocalRandom.current().nextInt(ids.size()));
+		Map<String, Object> changes = Map.of("title", "Load lesson " + System.nanoTime());
+		return isOk(send("PUT", "/api/lesson/" + lessonId, changes, teacher.token));
+	}
+
+	private void tickReminders(ReminderEngine reminderEngine, long measureFrom, long end, LatencyRecorder recorder) {
+		while (System.nanoTime() < end) {
+			long started = System.nanoTime();
+			boolean ok = true;
+			try {
+				reminderEngine.reconcile();
+			} catch (RuntimeException e) {
+				ok = false;
+			}
+			if (started >= measureFrom) {
+				recorder.record(System.nanoTime() - started, ok);
+			}
+			try {
+				Thread.sleep(reminderTickMs);
+			} catch (InterruptedException e) {
+				return;
+			}
+		}
+	}
+
+	private HttpResponse<String> send(String method, String path, Object body, String token) throws Exception {
+		HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(baseUrl + path))
+				.timeout(Duration.ofSeconds(30))
+				.header("Content-Type", "application/json")
+				.method(method, body == null
+						? HttpRequest.BodyPublishers.noBody()
+						: HttpRequest.BodyPublishers.ofByteArray(json.writeValueAsBytes(body)));
+		if (token != null) {
+			request.header("Authorization", "Bearer " + token);
+		}
+		return http.send(request.build(), HttpResponse.BodyHandlers.ofString());
+	}
+
+	private boolean isOk(HttpResponse<String> response) {
+		return response.statusCode() / 100 == 2;
+	}
+
+	private void expectOk(HttpResponse<String> response, String what) {
+		if (!isOk(response)) {
+			throw new IllegalStateException(what + " failed with " + response.statusCode() + ": " + response.body());
+		}
+	}
+
+	private void report(List<Map<String, LatencyRecorder>> perWorker, Map<String, Integer> weights, long mails,
+			int deadLetters) throws Exception {
+		Map<String, LatencyRecorder> totals = new LinkedHashMap<>();
+		for (Map<String, LatencyRecorder> recorders : perWorker) {
+			recorders.forEach((operation, recorder) ->
+					recorder.mergeInto(totals.computeIfAbsent(operation, op -> new LatencyRecorder())));
+		}
+
+		Map<String, Object> operations = new LinkedHashMap<>();
+		long requests = 0;
+		System.out.printf("%n%-14s %9s %7s %10s %9s %9s %9s %9s%n", "operation", "count", "errors", "req/s",
+				"p50 ms", "p95 ms", "p99 ms", "max ms");
+		for (Map.Entry<String, LatencyRecorder> entry : totals.entrySet()) {
+			Map<String, Object> summary = entry.getValue().summary(durationSeconds);
+			operations.put(entry.getKey(), summary);
+			if (!entry.getKey().equals("reminderTick")) {
+				requests += entry.getValue().count();
+			}
+			System.out.printf("%-14s %9d %7d %10.2f %9.2f %9.2f %9.2f %9.2f%n", entry.getKey(), summary.get("count"),
+					summary.get("errors"), summary.get("throughput"), summary.get("p50"), summary.get("p95"),
+					summary.get("p99"), summary.get("max"));
+		}
+		double throughput = Math.round(requests * 100.0 / durationSeconds) / 100.0;
+		System.out.printf("%nHTTP throughput %.2f req/s, %d mail(s) delivered to the SMTP sink, %d dead letter(s)%n",
+				throughput, mails, deadLetters);
+
+		Map<String, Object> result = new LinkedHashMap<>();
+		result.put("users", users);
+		result.put("concurrency", concurrency);
+		result.put("durationSeconds", durationSeconds);
+		result.put("warmupSeconds", warmupSeconds);
+		result.put("mix", weights);
+		result.put("throughput", throughput);
+		result.put("operations", operations);
+		result.put("mailsDelivered", mails);
+		result.put("mailDeadLetters", deadLetters);
+		File file = new File(reportPath);
+		if (file.getParentFile() != null) {
+			file.getParentFile().mkdirs();
+		}
+		json.writerWithDefaultPrettyPrinter().writeValue(file, result);
+		System.out.println("Report written to " + file.getAbsolutePath());
+	}
+
+	private static Map<String, Integer> parseMix(String mix) {
+		Map<String, Integer> weights = new LinkedHashMap<>();
+		for (String part : mix.split(",")) {
+			String[] pair = part.trim().split("=");
+			if (pair.length != 2) {
+				throw new IllegalArgumentException("loadtest.mix entries look like week=50, got '" + part + "'");
+			}
+			if (!OPERATIONS.contains(pair[0].trim())) {
+				throw new IllegalArgumentException("Unknown operation '" + pair[0].trim() + "', use one of " + OPERATIONS);
+			}
+			int weight = Integer.parseInt(pair[1].trim());
+			if (weight > 0) {
+				weights.put(pair[0].trim(), weight);
+			}
+		}
+		if (weights.isEmpty()) {
+			throw new IllegalArgumentException("loadtest.mix has no operation with a positive weight");
+		}
+		return weights;
+	}
+
+	private static String pick(Map<String, Integer> weights, int roll) {
+		for (Map.Entry<String, Integer> entry : weights.entrySet()) {
+			roll -= entry.getValue();
+			if (roll < 0) {
+				return entry.getKey();
+			}
+		}
+		throw new IllegalStateException();
+	}
+}
@@ -0,0 +1,95 @@
+package com.vipertips.timetable.loadtest;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Just enough SMTP to accept and discard what the mail queue sends: no TLS, no auth, every
+ * command is acknowledged and each DATA block counts as one delivered message.
+ */
+final class SmtpSink implements AutoCloseable {
+
+	private final ServerSocket server;
+	private final AtomicLong received = new AtomicLong();
+	private final Thread acceptor;
+
+	private SmtpSink(ServerSocket server) {
+		this.server = server;
+		this.acceptor = Thread.ofPlatform().name("smtp-sink").daemon(true).start(this::accept);
+	}
+
+	static SmtpSink start() {
+		try {
+			return new SmtpSink(new ServerSocket(0, 100, InetAddress.getLoopbackAddress()));
+		} catch (IOException e) {
+			throw new UncheckedIOException("Could not open the SMTP sink", e);
+		}
+	}
+
+	int port() {
+		return server.getLocalPort();
+	}
+
+	long received() {
+		return received.get();
+	}
+
+	private void accept() {
+		while (!server.isClosed()) {
+			try {
+				Socket socket = server.accept();
+				Thread.ofVirtual().start(() -> serve(socket));
+			} catch (IOException e) {
+				// closed
+			}
+		}
+	}
+
+	private void serve(Socket socket) {
+		try (socket;
+				BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII));
+				OutputStream out = socket.getOutputStream()) {
+			reply(out, "220 smtp-sink ready");
+			String line;
+			while ((line = in.readLine()) != null) {
+				String command = line.length() >= 4 ? line.substring(0, 4).toUpperCase() : line.toUpperCase();
+				switch (command) {
+					case "DATA" -> {
+						reply(out, "354 end data with <CR><LF>.<CR><LF>");
+						while ((line = in.readLine()) != null && !line.equals(".")) {
+							// discard the message body
+						}
+						received.incrementAndGet();
+						reply(out, "250 OK queued");
+					}
+					case "QUIT" -> {
+						reply(out, "221 bye");
+						return;
+					}
+					default -> reply(out, "250 OK");
+				}
+			}
+		} catch (IOException e) {
+			// client went away
+		}
+	}
+
+	private static void reply(OutputStream out, String line) throws IOException {
+		out.write((line + "\r\n").getBytes(StandardCharsets.US_ASCII));
+		out.flush();
+	}
+
+	@Override
+	public void close() throws IOException {
+		server.close();
+		acceptor.interrupt();
+	}
+}
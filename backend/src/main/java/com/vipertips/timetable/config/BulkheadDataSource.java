@@ -0,0 +1,106 @@
+package com.vipertips.timetable.config;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import javax.sql.DataSource;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+/**
+ * Lets at most {@code permits} connections be checked out at once; everyone else queues on a fair
+ * semaphore instead of piling into the pool. With virtual threads there is no request thread limit
+ * in front of the pool any more, and thousands of threads spinning on the pool's handoff queue cost
+ * more than parking on a semaphore. A permit is held from getConnection() until close().
+ */
+class BulkheadDataSource extends DelegatingDataSource {
+
+	private final Semaphore permits;
+	private final long acquireTimeoutMs;
+
+	BulkheadDataSource(DataSource target, int permits, long acquireTimeoutMs) {
+		super(target);
+		this.permits = new Semaphore(permits, true);
+		this.acquireTimeoutMs = acquireTimeoutMs;
+	}
+
+	@Override
+	public Connection getConnection() throws SQLException {
+		acquire();
+		try {
+			return guard(obtainTargetDataSource().getConnection());
+		} catch (SQLException | RuntimeException e) {
+			permits.release();
+			throw e;
+		}
+	}
+
+	@Override
+	public Connection getConnection(String username, String password) throws SQLException {
+		acquire();
+		try {
+			return guard(obtainTargetDataSource().getConnection(username, password));
+		} catch (SQLException | RuntimeException e) {
+			permits.release();
+			throw e;
+		}
+	}
+
+	int availablePermits() {
+		return permits.availablePermits();
+	}
+
+	int queueLength() {
+		return permits.getQueueLength();
+	}
+
+	private void acquire() throws SQLException {
+		try {
+			if (!permits.tryAcquire(acquireTimeoutMs, TimeUnit.MILLISECONDS)) {
+				throw new SQLTransientConnectionException(
+						"No database connection available within " + acquireTimeoutMs + " ms");
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new SQLTransientConnectionException("Interrupted while waiting for a database connection", e);
+		}
+	}
+
+	private Connection guard(Connection target) {
+		AtomicBoolean released = new AtomicBoolean();
+		return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[] { Connection.class },
+				(proxy, method, args) -> {
+					switch (method.getName()) {
+						case "close":
+							try {
+								target.close();
+							} finally {
+								if (released.compareAndSet(false, true)) {
+									permits.release();
+								}
+							}
+							return null;
+						case "equals":
+							return proxy == args[0];
+						case "hashCode":
+							return System.identityHashCode(proxy);
+						case "unwrap":
+							return ((Class<?>) args[0]).isInstance(proxy) ? proxy : target.unwrap((Class<?>) args[0]);
+						case "isWrapperFor":
+							return ((Class<?>) args[0]).isInstance(proxy) || target.isWrapperFor((Class<?>) args[0]);
+						default:
+							try {
+								return method.invoke(target, args);
+							} catch (InvocationTargetException e) {
+								throw e.getTargetException();
+							}
+					}
+				});
+	}
+}
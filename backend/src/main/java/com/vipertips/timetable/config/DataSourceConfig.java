@@ -0,0 +1,100 @@
+package com.vipertips.timetable.config;
+
+import javax.sql.DataSource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+/**
+ * Production connection pools. Both pools take their settings from {@code spring.datasource.hikari}
+ * and are sized from the CPU count unless {@code datasource.pool.max-size} is set. Read-only
+ * transactions ({@code @Transactional(readOnly = true)}) run on the replica when one is configured:
+ * the lazy proxy only fetches a physical connection at the first statement, after the transaction
+ * has marked the connection read-only.
+ */
+@Configuration
+@Profile("prod")
+public class DataSourceConfig {
+	private static final Logger logger = LoggerFactory.getLogger(DataSourceConfig.class);
+
+	@Autowired
+	private Environment environment;
+
+	@Value("${datasource.pool.max-size:0}")
+	private int maxPoolSize;
+
+	@Value("${datasource.pool.connections-per-core:2}")
+	private int connectionsPerCore;
+
+	@Value("${datasource.pool.spindles:1}")
+	private int spindles;
+
+	@Bean
+	public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+		return pool("primary", properties.determineUrl(), properties.determineUsername(),
+				properties.determinePassword(), properties.determineDriverClassName());
+	}
+
+	@Bean
+	@ConditionalOnProperty(name = "datasource.replica.enabled", havingValue = "true")
+	public HikariDataSource replicaDataSource(DataSourceProperties properties) {
+		HikariDataSource replica = pool("replica",
+				environment.getRequiredProperty("datasource.replica.url"),
+				environment.getProperty("datasource.replica.username", properties.determineUsername()),
+				environment.getProperty("datasource.replica.password", properties.determinePassword()),
+				properties.determineDriverClassName());
+		replica.setReadOnly(true);
+		return replica;
+	}
+
+	@Bean
+	@Primary
+	public DataSource dataSource(@Qualifier("primaryDataSource") HikariDataSource primary,
+			@Qualifier("replicaDataSource") ObjectProvider<HikariDataSource> replica) {
+		LazyConnectionDataSourceProxy proxy = new LazyConnectionDataSourceProxy(primary);
+		HikariDataSource readOnly = replica.getIfAvailable();
+		if (readOnly != null) {
+			proxy.setReadOnlyDataSource(readOnly);
+		}
+		return proxy;
+	}
+
+	private HikariDataSource pool(String name, String url, String username, String password, String driver) {
+		HikariDataSource pool = new HikariDataSource();
+		// timeouts, lifetimes and the driver's data-source-properties (statement cache, batching)
+		Binder.get(environment).bind("spring.datasource.hikari", Bindable.ofInstance(pool));
+		pool.setPoolName(name);
+		pool.setJdbcUrl(url);
+		pool.setUsername(username);
+		pool.setPassword(password);
+		pool.setDriverClassName(driver);
+		pool.setMaximumPoolSize(poolSize());
+		pool.setMinimumIdle(poolSize());
+		logger.info("Connection pool '{}' sized to {} connection(s)", name, poolSize());
+		return pool;
+	}
+
+	// cores * 2 + effective spindles, HikariCP's starting point; set max-size when the database host differs
+	private int poolSize() {
+		if (maxPoolSize > 0) {
+			return maxPoolSize;
+		}
+		return Runtime.getRuntime().availableProcessors() * connectionsPerCore + spindles;
+	}
+}
@@ -0,0 +1,66 @@
+package com.vipertips.timetable.config;
+
+import javax.sql.DataSource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.jdbc.DataSourceUnwrapper;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import com.zaxxer.hikari.HikariConfigMXBean;
+import com.zaxxer.hikari.HikariDataSource;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+/**
+ * Puts a {@link BulkheadDataSource} in front of the application's data source, on by default when
+ * requests run on virtual threads ({@code spring.threads.virtual.enabled}). The permits default to
+ * the pool's maximum size; with a read replica (prod) set {@code db.bulkhead.permits} to both pools.
+ */
+@Configuration
+@ConditionalOnProperty(name = "db.bulkhead.enabled", havingValue = "true")
+public class DatabaseBulkheadConfig {
+	private static final Logger logger = LoggerFactory.getLogger(DatabaseBulkheadConfig.class);
+
+	@Bean
+	public static BeanPostProcessor databaseBulkhead(Environment environment) {
+		return new BeanPostProcessor() {
+			@Override
+			public Object postProcessAfterInitialization(Object bean, String beanName) {
+				if (!"dataSource".equals(beanName) || !(bean instanceof DataSource dataSource)
+						|| bean instanceof BulkheadDataSource) {
+					return bean;
+				}
+				int permits = environment.getProperty("db.bulkhead.permits", Integer.class, 0);
+				if (permits <= 0) {
+					HikariDataSource pool = DataSourceUnwrapper.unwrap(dataSource, HikariConfigMXBean.class,
+							HikariDataSource.class);
+					permits = pool != null ? pool.getMaximumPoolSize() : 10;
+				}
+				long timeoutMs = environment.getProperty("db.bulkhead.acquire-timeout-ms", Long.class, 30000L);
+				logger.info("Database bulkhead allows {} concurrent connection(s)", permits);
+				return new BulkheadDataSource(dataSource, permits, timeoutMs);
+			}
+		};
+	}
+
+	@Bean
+	public MeterBinder databaseBulkheadMetrics(ObjectProvider<DataSource> dataSource) {
+		return registry -> dataSource.ifAvailable(candidate -> {
+			if (candidate instanceof BulkheadDataSource bulkhead) {
+				Gauge.builder("db.bulkhead.available", bulkhead, BulkheadDataSource::availablePermits)
+						.description("Connections that can still be checked out without waiting")
+						.register(registry);
+				Gauge.builder("db.bulkhead.waiting", bulkhead, BulkheadDataSource::queueLength)
+						.description("Threads waiting for a database connection permit")
+						.register(registry);
+			}
+		});
+	}
+}
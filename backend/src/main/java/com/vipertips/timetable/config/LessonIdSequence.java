@@ -0,0 +1,61 @@
+package com.vipertips.timetable.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Keeps {@code lessons_seq} ahead of the stored lesson ids. Databases created while lessons still used
+ * IDENTITY ids get the sequence at 1, so the first pooled block would hand out ids already taken; this
+ * moves it past {@code max(lesson_id)} before anything is written. It only ever moves the sequence
+ * forward, and does nothing once it is ahead, so it is safe on every start and on every instance.
+ */
+@Component
+public class LessonIdSequence {
+	private static final Logger logger = LoggerFactory.getLogger(LessonIdSequence.class);
+
+	// must match the allocationSize on Lesson.lessonId
+	static final int ALLOCATION_SIZE = 50;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	// injected so the schema is created or updated before the check runs
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	@PostConstruct
+	void alignWithStoredIds() {
+		Integer maxId = jdbcTemplate.queryForObject("select max(lesson_id) from lessons", Integer.class);
+		if (maxId == null) {
+			return;
+		}
+		String product = jdbcTemplate.execute(
+				(ConnectionCallback<String>) connection -> connection.getMetaData().getDatabaseProductName());
+		// the pooled optimizer hands out (next - allocationSize, next], so next must reach max + allocationSize
+		long wanted = (long) maxId + ALLOCATION_SIZE;
+		if ("H2".equals(product)) {
+			Long next = jdbcTemplate.queryForObject(
+					"select base_value from information_schema.sequences where sequence_name = 'LESSONS_SEQ'",
+					Long.class);
+			if (next != null && next < wanted) {
+				jdbcTemplate.execute("alter sequence lessons_seq restart with " + wanted);
+				logger.info("Moved lessons_seq from {} to {}, past the highest lesson id {}", next, wanted, maxId);
+			}
+		} else if ("MySQL".equals(product)) {
+			// MySQL has no sequences; Hibernate keeps the next value in a one-row table
+			int moved = jdbcTemplate.update("update lessons_seq set next_val = ? where next_val < ?", wanted, wanted);
+			if (moved > 0) {
+				logger.info("Moved lessons_seq to {}, past the highest lesson id {}", wanted, maxId);
+			}
+		} else {
+			logger.warn("Cannot check lessons_seq on {}; make sure it is past the highest lesson id {}", product, maxId);
+		}
+	}
+}
@@ -5,6 +5,7 @@ import java.util.Arrays;
 
 import org.springdoc.core.models.GroupedOpenApi;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -21,6 +22,8 @@ import org.springframework.web.cors.CorsConfiguration;
 import com.vipertips.timetable.filter.JwtAuthenticationFilter;
 import com.vipertips.timetable.service.UserDetailsImpl;
 
+import jakarta.servlet.DispatcherType;
+
 
 
 @Configuration
@@ -33,6 +36,9 @@ public class SecurityConfig {
     @Autowired
     private JwtAuthenticationFilter jwtAuthenticationFilter;
 
+    @Value("${management.server.port:-1}")
+    private int managementPort;
+
     @Bean
     public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
         return http
@@ -46,16 +52,21 @@ public class SecurityConfig {
                            "http://localhost:8080"
                     ));
                     corsConfig.setAllowedMethods(Arrays.asList("GET", "POST", "PUT", "DELETE"));
-                    corsConfig.setAllowedHeaders(Arrays.asList("Authorization", "Content-Type"));
+                    corsConfig.setAllowedHeaders(Arrays.asList("Authorization", "Content-Type", "Last-Event-ID"));
                     corsConfig.setAllowCredentials(true);
                     corsConfig.setExposedHeaders(Arrays.asList("Authorization"));
 
                     return corsConfig;
                 }))
                 .authorizeHttpRequests(auth -> auth
+                        // completing an event stream re-dispatches the already authorized request
+                        .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
                         .requestMatchers("/api/auth/**","/static/**","/index.html","/api/public/**","/health","/api/reviews/{businessId}").permitAll()
                         .requestMatchers( "/swagger-ui/**", "/v3/api-docs/**","/h2-console/**").permitAll()
                         .requestMatchers("/error").permitAll()
+                        // actuator only answers on the management port, which is not published with the API
+                        .requestMatchers(request -> request.getLocalPort() == managementPort).permitAll()
+                        .requestMatchers("/api/timetable/**").hasRole("ADMIN")
                         
                         .anyRequest().authenticated()
                 )
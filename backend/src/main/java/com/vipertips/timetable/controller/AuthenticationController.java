@@ -71,5 +71,18 @@ public class AuthenticationController {
         return ResponseEntity.ok(new ApiResponse<>("Token refreshed successfully", true, response));
     }
 
+    @Operation(summary = "Logout", description = "Revokes the bearer token sent in the Authorization header and the refresh token sent as the refreshToken form field until they expire.")
+    @PostMapping("/logout")
+    public ResponseEntity<ApiResponse<?>> logout(@RequestHeader("Authorization") String authHeader,
+            @RequestParam(required = false) String refreshToken) {
+        try {
+            authenticationService.logout(authHeader.startsWith("Bearer ") ? authHeader.substring(7) : authHeader,
+                    refreshToken);
+            return ResponseEntity.ok(new ApiResponse<>("Logged out successfully", true, null));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(new ApiResponse<>(e.getMessage(), false, null));
+        }
+    }
+
    
 }
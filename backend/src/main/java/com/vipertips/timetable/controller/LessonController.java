@@ -1,19 +1,34 @@
 package com.vipertips.timetable.controller;
 
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
 import java.util.List;
 import java.util.Map;
 
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.domain.Page;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import com.vipertips.timetable.dto.AuthenticatedUser;
+import com.vipertips.timetable.dto.LessonBatchDto;
 import com.vipertips.timetable.dto.LessonDto;
-import com.vipertips.timetable.dto.UserDto;
+import com.vipertips.timetable.dto.LessonRow;
+import com.vipertips.timetable.dto.TimeSlotDto;
 import com.vipertips.timetable.response.ApiResponse;
-import com.vipertips.timetable.service.JwtService;
+import com.vipertips.timetable.response.CursorPage;
+import com.vipertips.timetable.response.LessonBatchResult;
+import com.vipertips.timetable.response.LessonPage;
+import com.vipertips.timetable.service.LessonEventStream;
 import com.vipertips.timetable.service.LessonService;
-import com.vipertips.timetable.service.UserService;
+import com.vipertips.timetable.service.ResourceVersions;
 
 import io.swagger.v3.oas.annotations.Operation;
 import jakarta.servlet.http.HttpServletRequest;
@@ -22,29 +37,25 @@ import jakarta.servlet.http.HttpServletRequest;
 @RequestMapping("/api/lesson")
 public class LessonController {
 
+    // browsers keep the body but revalidate it with If-None-Match on every poll
+    private static final CacheControl REVALIDATE = CacheControl.noCache().cachePrivate();
+
     @Autowired
     private LessonService lessonService;
 
     @Autowired
-    private UserService userService;
+    private ResourceVersions resourceVersions;
 
     @Autowired
-    private JwtService jwtService;
-
-    private String extractToken(HttpServletRequest request) {
-        String token = request.getHeader("Authorization");
-        return (token != null && token.startsWith("Bearer ")) ? token.substring(7) : null;
-    }
+    private LessonEventStream lessonEventStream;
 
     @Operation(
         summary = "Create a new lesson",
         description = "Creates a new lesson for the logged-in teacher. You need to provide the lesson’s title, start time, end time, and other details in the request body."
     )
     @PostMapping
-    public ResponseEntity<ApiResponse<LessonDto>> createLesson(@RequestBody LessonDto lessonDto, HttpServletRequest req) {
+    public ResponseEntity<ApiResponse<LessonDto>> createLesson(@RequestBody LessonDto lessonDto, @AuthenticationPrincipal AuthenticatedUser teacher) {
         try {
-            String username = jwtService.extractUsername(extractToken(req));
-            UserDto teacher = userService.getUserByUsername(username);
             LessonDto created = lessonService.createLesson(lessonDto, teacher.getUserId());
             return ResponseEntity.ok(new ApiResponse<>("Lesson created successfully", true, created));
         } catch (Exception e) {
@@ -52,6 +63,20 @@ public class LessonController {
         }
     }
 
+    @Operation(
+        summary = "Create, update and delete lessons in bulk",
+        description = "Applies a whole import for the logged-in teacher in one transaction. Lessons in 'update' are matched by lessonId, 'delete' holds lesson IDs. Every item gets its own result, failed items do not stop the rest."
+    )
+    @PostMapping("/batch")
+    public ResponseEntity<ApiResponse<List<LessonBatchResult>>> applyBatch(@RequestBody LessonBatchDto batch, @AuthenticationPrincipal AuthenticatedUser teacher) {
+        try {
+            List<LessonBatchResult> results = lessonService.applyBatch(batch, teacher.getUserId());
+            return ResponseEntity.ok(new ApiResponse<>("Batch processed", true, results));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(new ApiResponse<>(e.getMessage(), false, null));
+        }
+    }
+
     @Operation(
         summary = "Update an existing lesson",
         description = "Updates the details of an existing lesson using its ID and the new lesson information in the request body."
@@ -82,17 +107,89 @@ public class LessonController {
 
     @Operation(
         summary = "Get all lessons for the logged-in teacher",
-        description = "Fetches a paginated list of lessons assigned to the logged-in teacher. Provide page number and size as query params."
+        description = "Fetches a paginated list of lessons assigned to the logged-in teacher, newest first. Provide page number and size as query params. The page carries content, number, size, numberOfElements, totalElements, totalPages, first, last and empty."
     )
     @GetMapping("/teacher")
-    public ResponseEntity<ApiResponse<Page<LessonDto>>> getLessonsForTeacher(@RequestParam(defaultValue = "0") int page, @RequestParam(defaultValue = "10") int size, HttpServletRequest req) {
+    public ResponseEntity<ApiResponse<LessonPage>> getLessonsForTeacher(@RequestParam(defaultValue = "0") int page, @RequestParam(defaultValue = "10") int size, @AuthenticationPrincipal AuthenticatedUser teacher, WebRequest request) {
+        if (request.checkNotModified(resourceVersions.etag(ResourceVersions.Kind.LESSONS, teacher.getUserId(), page, size))) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).cacheControl(REVALIDATE).build();
+        }
+        try {
+            LessonPage lessons = lessonService.getLessonsForTeacher(teacher.getUserId(), page, size);
+            return ResponseEntity.ok().cacheControl(REVALIDATE).body(new ApiResponse<>("Lesson(s) retrieved successfully", true, lessons));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(new ApiResponse<>(e.getMessage(), false, null));
+        }
+    }
+
+    @Operation(
+        summary = "Scroll through the logged-in teacher's lessons",
+        description = "Cursor-based listing, newest first. Omit the cursor for the first slice, then pass back the nextCursor of the previous response. No total count is computed."
+    )
+    @GetMapping("/teacher/cursor")
+    public ResponseEntity<ApiResponse<CursorPage<LessonRow>>> getLessonsForTeacherAfter(@RequestParam(required = false) String cursor, @RequestParam(defaultValue = "10") int size, @AuthenticationPrincipal AuthenticatedUser teacher, WebRequest request) {
+        if (request.checkNotModified(resourceVersions.etag(ResourceVersions.Kind.LESSONS, teacher.getUserId(), cursor == null ? "" : cursor, size))) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).cacheControl(REVALIDATE).build();
+        }
+        try {
+            CursorPage<LessonRow> lessons = lessonService.getLessonsForTeacherAfter(teacher.getUserId(), cursor, size);
+            return ResponseEntity.ok().cacheControl(REVALIDATE).body(new ApiResponse<>("Lesson(s) retrieved successfully", true, lessons));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(new ApiResponse<>(e.getMessage(), false, null));
+        }
+    }
+
+    @Operation(
+        summary = "Get the logged-in teacher's lessons in a date range",
+        description = "Returns every lesson starting in [from, to), ordered by start time. Meant for the week and day views; from and to are ISO date-times, e.g. 2025-06-02T00:00:00."
+    )
+    @GetMapping("/teacher/range")
+    public ResponseEntity<ApiResponse<List<LessonDto>>> getLessonsForTeacherInRange(@RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from, @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to, @AuthenticationPrincipal AuthenticatedUser teacher, WebRequest request) {
+        if (request.checkNotModified(resourceVersions.etag(ResourceVersions.Kind.LESSONS, teacher.getUserId(), from, to))) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).cacheControl(REVALIDATE).build();
+        }
+        try {
+            List<LessonDto> lessons = lessonService.getLessonsForTeacherInRange(teacher.getUserId(), from, to);
+            return ResponseEntity.ok().cacheControl(REVALIDATE).body(new ApiResponse<>("Lesson(s) retrieved successfully", true, lessons));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(new ApiResponse<>(e.getMessage(), false, null));
+        }
+    }
+
+    @Operation(
+        summary = "List the logged-in teacher's lessons overlapping a time window",
+        description = "Returns the lessons, including upcoming occurrences of recurring series, that overlap [start, end). Pass excludeLessonId when checking a move of an existing lesson."
+    )
+    @GetMapping("/conflicts")
+    public ResponseEntity<ApiResponse<List<LessonDto>>> findConflicts(@RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime start, @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime end, @RequestParam(required = false) Integer excludeLessonId, @AuthenticationPrincipal AuthenticatedUser teacher) {
         try {
-            String username = jwtService.extractUsername(extractToken(req));
-            UserDto teacher = userService.getUserByUsername(username);
-            Page<LessonDto> lessons = lessonService.getLessonsForTeacher(teacher.getUserId(), page, size);
-            return ResponseEntity.ok(new ApiResponse<>("Lesson(s) retrieved successfully", true, lessons));
+            List<LessonDto> conflicts = lessonService.findConflicts(teacher.getUserId(), start, end, excludeLessonId);
+            return ResponseEntity.ok(new ApiResponse<>(conflicts.isEmpty() ? "No conflicts" : "Conflicting lesson(s) found", true, conflicts));
         } catch (Exception e) {
             return ResponseEntity.badRequest().body(new ApiResponse<>(e.getMessage(), false, null));
         }
     }
+
+    @Operation(
+        summary = "List the logged-in teacher's free slots in a week",
+        description = "Returns the gaps of at least minMinutes between lessons within the daily dayStart-dayEnd window, for Monday to Sunday of the week containing weekOf (an ISO date)."
+    )
+    @GetMapping("/free-slots")
+    public ResponseEntity<ApiResponse<List<TimeSlotDto>>> findFreeSlots(@RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate weekOf, @RequestParam(defaultValue = "08:00") @DateTimeFormat(iso = DateTimeFormat.ISO.TIME) LocalTime dayStart, @RequestParam(defaultValue = "17:00") @DateTimeFormat(iso = DateTimeFormat.ISO.TIME) LocalTime dayEnd, @RequestParam(defaultValue = "30") int minMinutes, @AuthenticationPrincipal AuthenticatedUser teacher) {
+        try {
+            List<TimeSlotDto> slots = lessonService.findFreeSlots(teacher.getUserId(), weekOf, dayStart, dayEnd, minMinutes);
+            return ResponseEntity.ok(new ApiResponse<>("Free slot(s) retrieved successfully", true, slots));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(new ApiResponse<>(e.getMessage(), false, null));
+        }
+    }
+
+    @Operation(
+        summary = "Stream the logged-in teacher's timetable changes",
+        description = "Server-sent events: lesson.created, lesson.updated, lesson.deleted, lessons.changed (bulk change, re-fetch) and reminder.sent. Reconnect with the Last-Event-ID header to receive missed events; a resync event means they are gone and the client should re-fetch. Browsers' EventSource may pass the token as access_token instead of the Authorization header."
+    )
+    @GetMapping(path = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamChanges(@RequestHeader(value = "Last-Event-ID", required = false) String lastEventId, @AuthenticationPrincipal AuthenticatedUser teacher) {
+        return lessonEventStream.subscribe(teacher.getUserId(), lastEventId);
+    }
 }
@@ -0,0 +1,95 @@
+package com.vipertips.timetable.controller;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.*;
+
+import com.vipertips.timetable.dto.AuthenticatedUser;
+import com.vipertips.timetable.dto.LessonSeriesDto;
+import com.vipertips.timetable.response.ApiResponse;
+import com.vipertips.timetable.service.LessonSeriesService;
+
+import io.swagger.v3.oas.annotations.Operation;
+
+@RestController
+@RequestMapping("/api/lesson/series")
+public class LessonSeriesController {
+
+    @Autowired
+    private LessonSeriesService lessonSeriesService;
+
+    @Operation(
+        summary = "Create a recurring lesson",
+        description = "Creates a DAILY or WEEKLY series for the logged-in teacher. startTime/endTime describe the first occurrence; interval, byDays (e.g. [\"MONDAY\",\"THURSDAY\"]), until and count shape the recurrence."
+    )
+    @PostMapping
+    public ResponseEntity<ApiResponse<LessonSeriesDto>> createSeries(@RequestBody LessonSeriesDto dto, @AuthenticationPrincipal AuthenticatedUser teacher) {
+        try {
+            LessonSeriesDto created = lessonSeriesService.createSeries(dto, teacher.getUserId());
+            return ResponseEntity.ok(new ApiResponse<>("Series created successfully", true, created));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(new ApiResponse<>(e.getMessage(), false, null));
+        }
+    }
+
+    @Operation(
+        summary = "Get all recurring lessons of the logged-in teacher",
+        description = "Lists the series rules. Individual occurrences show up in the date-range lesson endpoint."
+    )
+    @GetMapping
+    public ResponseEntity<ApiResponse<List<LessonSeriesDto>>> getSeries(@AuthenticationPrincipal AuthenticatedUser teacher) {
+        try {
+            List<LessonSeriesDto> series = lessonSeriesService.getSeriesForTeacher(teacher.getUserId());
+            return ResponseEntity.ok(new ApiResponse<>("Series retrieved successfully", true, series));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(new ApiResponse<>(e.getMessage(), false, null));
+        }
+    }
+
+    @Operation(
+        summary = "Update a whole series",
+        description = "Changes the rule for every upcoming occurrence. Upcoming occurrences that were edited one by one are regenerated from the new rule."
+    )
+    @PutMapping("/{seriesId}")
+    public ResponseEntity<ApiResponse<LessonSeriesDto>> updateSeries(@PathVariable int seriesId, @RequestBody LessonSeriesDto dto, @AuthenticationPrincipal AuthenticatedUser teacher) {
+        try {
+            LessonSeriesDto updated = lessonSeriesService.updateSeries(seriesId, dto, teacher.getUserId());
+            return ResponseEntity.ok(new ApiResponse<>("Series updated successfully", true, updated));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(new ApiResponse<>(e.getMessage(), false, null));
+        }
+    }
+
+    @Operation(
+        summary = "Delete a series",
+        description = "Deletes the series and its upcoming occurrences. Past occurrences stay on the timetable as standalone lessons."
+    )
+    @DeleteMapping("/{seriesId}")
+    public ResponseEntity<ApiResponse<?>> deleteSeries(@PathVariable int seriesId, @AuthenticationPrincipal AuthenticatedUser teacher) {
+        try {
+            lessonSeriesService.deleteSeries(seriesId, teacher.getUserId());
+            return ResponseEntity.ok(new ApiResponse<>("Series deleted successfully", true, null));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(new ApiResponse<>(e.getMessage(), false, null));
+        }
+    }
+
+    @Operation(
+        summary = "Cancel one occurrence of a series",
+        description = "Removes the occurrence that originally starts at the given ISO date-time from the series."
+    )
+    @DeleteMapping("/{seriesId}/occurrences")
+    public ResponseEntity<ApiResponse<?>> cancelOccurrence(@PathVariable int seriesId, @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime start, @AuthenticationPrincipal AuthenticatedUser teacher) {
+        try {
+            lessonSeriesService.cancelOccurrence(seriesId, start, teacher.getUserId());
+            return ResponseEntity.ok(new ApiResponse<>("Occurrence cancelled successfully", true, null));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(new ApiResponse<>(e.getMessage(), false, null));
+        }
+    }
+}
@@ -1,46 +1,49 @@
 package com.vipertips.timetable.controller;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 
+import com.vipertips.timetable.dto.AuthenticatedUser;
 import com.vipertips.timetable.dto.UserDto;
 import com.vipertips.timetable.response.ApiResponse;
-import com.vipertips.timetable.service.JwtService;
+import com.vipertips.timetable.service.ResourceVersions;
 import com.vipertips.timetable.service.UserService;
 
 import io.swagger.v3.oas.annotations.Operation;
-import jakarta.servlet.http.HttpServletRequest;
 
 @RestController
 @RequestMapping("/api/teacher")
 public class TeacherController {
 
+    private static final CacheControl REVALIDATE = CacheControl.noCache().cachePrivate();
+
     @Autowired
     private UserService userService;
 
     @Autowired
-    private JwtService jwtService;
-
-    private String extractToken(HttpServletRequest request) {
-        String token = request.getHeader("Authorization");
-        return (token != null && token.startsWith("Bearer ")) ? token.substring(7) : null;
-    }
+    private ResourceVersions resourceVersions;
 
     @Operation(
         summary = "Get logged-in teacher’s profile",
         description = "Fetches the profile details (first name, last name, email, etc.) of the currently logged-in teacher. Uses the JWT from the Authorization header to identify the user."
     )
     @GetMapping
-    public ResponseEntity<ApiResponse<UserDto>> getMyProfile(HttpServletRequest req) {
+    public ResponseEntity<ApiResponse<UserDto>> getMyProfile(@AuthenticationPrincipal AuthenticatedUser principal, WebRequest request) {
+        if (request.checkNotModified(resourceVersions.etag(ResourceVersions.Kind.PROFILE, principal.getUserId()))) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).cacheControl(REVALIDATE).build();
+        }
         try {
-            String username = jwtService.extractUsername(extractToken(req));
-            UserDto teacher = userService.getUserByUsername(username);
-            return ResponseEntity.ok(new ApiResponse<>("Profile retrieved successfully", true, teacher));
+            UserDto teacher = userService.getUserByUsername(principal.getEmail());
+            return ResponseEntity.ok().cacheControl(REVALIDATE).body(new ApiResponse<>("Profile retrieved successfully", true, teacher));
         } catch (Exception e) {
             return ResponseEntity.badRequest().body(new ApiResponse<>(e.getMessage(), false, null));
         }
@@ -51,11 +54,9 @@ public class TeacherController {
         description = "Updates the profile details (first name, last name) of the currently logged-in teacher. Uses the JWT from the Authorization header to identify the user, then updates the profile with the data provided in the request body."
     )
     @PostMapping
-    public ResponseEntity<ApiResponse<UserDto>> updateMyProfile(HttpServletRequest req, @RequestBody UserDto dto) {
+    public ResponseEntity<ApiResponse<UserDto>> updateMyProfile(@AuthenticationPrincipal AuthenticatedUser principal, @RequestBody UserDto dto) {
         try {
-            String username = jwtService.extractUsername(extractToken(req));
-            UserDto teacher = userService.getUserByUsername(username);
-            UserDto updatedProfile = userService.updateProfile(dto, teacher.getUserId());
+            UserDto updatedProfile = userService.updateProfile(dto, principal.getUserId());
             return ResponseEntity.ok(new ApiResponse<>("Profile updated successfully", true, updatedProfile));
         } catch (Exception e) {
             return ResponseEntity.badRequest().body(new ApiResponse<>(e.getMessage(), false, null));
@@ -0,0 +1,62 @@
+package com.vipertips.timetable.controller;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import com.vipertips.timetable.dto.TimetableJobDto;
+import com.vipertips.timetable.dto.TimetableRequestDto;
+import com.vipertips.timetable.response.ApiResponse;
+import com.vipertips.timetable.service.TimetableService;
+
+import io.swagger.v3.oas.annotations.Operation;
+
+@RestController
+@RequestMapping("/api/timetable")
+public class TimetableController {
+
+    @Autowired
+    private TimetableService timetableService;
+
+    @Operation(
+        summary = "Start generating a school timetable",
+        description = "Admin only. Starts a background job that places every required weekly lesson (subject, group, hours) with a teacher of that subject, a period and a room, without double-booking teachers, groups or rooms and respecting availability windows and existing lessons. Poll the returned job for progress."
+    )
+    @PostMapping("/jobs")
+    public ResponseEntity<ApiResponse<TimetableJobDto>> submit(@RequestBody TimetableRequestDto request) {
+        try {
+            TimetableJobDto job = timetableService.submit(request);
+            return ResponseEntity.accepted().body(new ApiResponse<>("Timetable job started", true, job));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(new ApiResponse<>(e.getMessage(), false, null));
+        }
+    }
+
+    @Operation(
+        summary = "Get a timetable job",
+        description = "Admin only. Returns the job's status, progress and the best timetable found so far."
+    )
+    @GetMapping("/jobs/{jobId}")
+    public ResponseEntity<ApiResponse<TimetableJobDto>> getJob(@PathVariable String jobId) {
+        try {
+            TimetableJobDto job = timetableService.getJob(jobId);
+            return ResponseEntity.ok(new ApiResponse<>("Timetable job retrieved successfully", true, job));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(new ApiResponse<>(e.getMessage(), false, null));
+        }
+    }
+
+    @Operation(
+        summary = "Store a generated timetable as lessons",
+        description = "Admin only. Creates the lessons of a finished, conflict-free timetable in each teacher's schedule."
+    )
+    @PostMapping("/jobs/{jobId}/apply")
+    public ResponseEntity<ApiResponse<TimetableJobDto>> apply(@PathVariable String jobId) {
+        try {
+            TimetableJobDto job = timetableService.apply(jobId);
+            return ResponseEntity.ok(new ApiResponse<>("Timetable applied", true, job));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(new ApiResponse<>(e.getMessage(), false, null));
+        }
+    }
+}
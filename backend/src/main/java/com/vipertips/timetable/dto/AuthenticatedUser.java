@@ -0,0 +1,46 @@
+package com.vipertips.timetable.dto;
+
+import java.security.Principal;
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import com.vipertips.timetable.model.User;
+import com.vipertips.timetable.model.User.Role;
+
+import lombok.Getter;
+
+/**
+ * Lightweight principal placed in the SecurityContext by the JWT filter, so controllers
+ * can resolve the caller's id and role without loading the {@link User} entity.
+ */
+@Getter
+public class AuthenticatedUser implements Principal {
+	private final int userId;
+	private final String email;
+	private final Role role;
+	private final Collection<? extends GrantedAuthority> authorities;
+
+	public AuthenticatedUser(int userId, String email, Role role) {
+		this.userId = userId;
+		this.email = email;
+		this.role = role;
+		this.authorities = List.of(new SimpleGrantedAuthority("ROLE_" + role.name()));
+	}
+
+	public static AuthenticatedUser from(User user) {
+		return new AuthenticatedUser(user.getUserId(), user.getEmail(), user.getRole());
+	}
+
+	@Override
+	public String getName() {
+		return email;
+	}
+
+	@Override
+	public String toString() {
+		return email;
+	}
+}
@@ -0,0 +1,13 @@
+package com.vipertips.timetable.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import lombok.Data;
+
+@Data
+public class LessonBatchDto {
+    private List<LessonDto> create = new ArrayList<>();
+    private List<LessonDto> update = new ArrayList<>();
+    private List<Integer> delete = new ArrayList<>();
+}
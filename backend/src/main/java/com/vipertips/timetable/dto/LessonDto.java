@@ -2,12 +2,23 @@ package com.vipertips.timetable.dto;
 
 import java.time.LocalDateTime;
 
+import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.NoArgsConstructor;
 
 @Data
+@NoArgsConstructor
+@AllArgsConstructor
 public class LessonDto {
     private int lessonId;
     private String title,lessonAbout;
     private LocalDateTime startTime;
     private LocalDateTime endTime;
+    // set for occurrences of a recurring series; lessonId is 0 until the occurrence is stored
+    private Integer seriesId;
+    private LocalDateTime originalStart;
+
+    public LessonDto(int lessonId, String title, String lessonAbout, LocalDateTime startTime, LocalDateTime endTime) {
+        this(lessonId, title, lessonAbout, startTime, endTime, null, null);
+    }
 }
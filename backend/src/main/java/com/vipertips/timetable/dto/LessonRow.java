@@ -0,0 +1,10 @@
+package com.vipertips.timetable.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * One line of a lesson listing, projected straight from the query.
+ */
+public record LessonRow(int lessonId, String title, String lessonAbout, LocalDateTime startTime,
+		LocalDateTime endTime) {
+}
@@ -0,0 +1,26 @@
+package com.vipertips.timetable.dto;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+
+import com.vipertips.timetable.model.LessonSeries.Frequency;
+
+import lombok.Data;
+
+@Data
+public class LessonSeriesDto {
+    private int seriesId;
+    private String title,lessonAbout;
+    // first occurrence
+    private LocalDateTime startTime;
+    private LocalDateTime endTime;
+    private Frequency frequency;
+    private Integer interval;
+    private List<DayOfWeek> byDays;
+    private LocalDate until;
+    private Integer count;
+    private Set<LocalDateTime> cancelledStarts;
+}
@@ -0,0 +1,43 @@
+package com.vipertips.timetable.dto;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class TimetableJobDto {
+    public enum Status {
+        QUEUED, RUNNING, FINISHED, FAILED, APPLIED
+    }
+
+    private String jobId;
+    private Status status;
+    // share of the time budget used, 100 once the job is finished
+    private int progress;
+    private long elapsedMs;
+    private long iterations;
+    // 0 means a conflict-free timetable, soft penalties only rate its quality
+    private int hardViolations;
+    private int softPenalty;
+    private String message;
+    private List<Entry> lessons;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Entry {
+        private int teacherId;
+        private String subject;
+        private String group;
+        private String room;
+        private LocalDateTime startTime;
+        private LocalDateTime endTime;
+    }
+}
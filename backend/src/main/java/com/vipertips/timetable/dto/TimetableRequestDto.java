@@ -0,0 +1,44 @@
+package com.vipertips.timetable.dto;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import lombok.Data;
+
+@Data
+public class TimetableRequestDto {
+    // any date in the week to fill, the timetable runs from its Monday
+    private LocalDate weekOf;
+    private List<DayOfWeek> days = new ArrayList<>(List.of(DayOfWeek.MONDAY, DayOfWeek.TUESDAY,
+            DayOfWeek.WEDNESDAY, DayOfWeek.THURSDAY, DayOfWeek.FRIDAY));
+    // the school day is cut into periods of lessonMinutes starting at dayStart
+    private LocalTime dayStart = LocalTime.of(8, 0);
+    private LocalTime dayEnd = LocalTime.of(15, 0);
+    private int lessonMinutes = 60;
+    private List<String> rooms = new ArrayList<>();
+    private List<Requirement> requirements = new ArrayList<>();
+    // teachers without windows are available the whole school day
+    private List<Availability> availability = new ArrayList<>();
+    private Long timeBudgetMs;
+
+    /**
+     * Weekly periods a group (class) needs in a subject. Any teacher whose subject matches may teach it.
+     */
+    @Data
+    public static class Requirement {
+        private String subject;
+        private String group;
+        private int hoursPerWeek;
+    }
+
+    @Data
+    public static class Availability {
+        private int teacherId;
+        private DayOfWeek day;
+        private LocalTime from;
+        private LocalTime to;
+    }
+}
@@ -5,17 +5,22 @@ import java.io.IOException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
+import com.vipertips.timetable.dto.AuthenticatedUser;
+import com.vipertips.timetable.service.AuthAuditLog;
 import com.vipertips.timetable.service.JwtService;
-import com.vipertips.timetable.service.UserDetailsImpl;
+import com.vipertips.timetable.service.LogThrottle;
+import com.vipertips.timetable.service.PrincipalCache;
 
 import io.micrometer.common.lang.NonNull;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -25,38 +30,91 @@ import jakarta.servlet.http.HttpServletResponse;
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
 	private static final Logger logger = LoggerFactory.getLogger(JwtAuthenticationFilter.class);
+	private static final String STREAM_PATH = "/api/lesson/stream";
 
 	@Autowired
 	private JwtService jwtService;
 
 	@Autowired
-	private UserDetailsImpl userDetailsImpl;
+	private PrincipalCache principalCache;
+
+	@Autowired
+	private MeterRegistry meterRegistry;
+
+	@Autowired
+	private AuthAuditLog authAuditLog;
+
+	@Autowired
+	private LogThrottle logThrottle;
+
+	// trust the user id and role carried in the token instead of resolving the user
+	@Value("${jwt.stateless:false}")
+	private boolean stateless;
 
 	@Override
 	protected void doFilterInternal(@NonNull HttpServletRequest request, @NonNull HttpServletResponse response,
 			@NonNull FilterChain filterChain) throws ServletException, IOException {
 		String authHeader = request.getHeader("Authorization");
+		if ((authHeader == null || !authHeader.startsWith("Bearer ")) && STREAM_PATH.equals(request.getServletPath())
+				&& request.getParameter("access_token") != null) {
+			// EventSource cannot set headers, so the event stream also takes the token as a query parameter
+			authHeader = "Bearer " + request.getParameter("access_token");
+		}
 		if (authHeader == null || !authHeader.startsWith("Bearer ")) {
-			logger.warn("No JWT token found in request headers");
+			if (logger.isDebugEnabled() && logThrottle.sample()) {
+				logger.debug("No JWT token on {} {}", request.getMethod(), request.getRequestURI());
+			}
 			filterChain.doFilter(request, response);
 			return;
 		}
 		String token = authHeader.substring(7);
-		String username = jwtService.extractUsername(token);
-		logger.info("Extracted username from token: {}", username);
-
-		if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-			UserDetails userDetails = userDetailsImpl.loadUserByUsername(username);
-			if (jwtService.isValid(token, userDetails)) {
-				logger.info("JWT Token is valid for user: {}", username);
-				UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(username, null,
-						userDetails.getAuthorities());
-				authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
-				SecurityContextHolder.getContext().setAuthentication(authToken);
-			} else {
-				logger.error("Invalid JWT token for user: {}", username);
+		Timer.Sample sample = Timer.start(meterRegistry);
+		String outcome = "skipped";
+		String username = null;
+		try {
+			username = jwtService.extractUsername(token);
+
+			if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
+				AuthenticatedUser principal = stateless ? jwtService.extractPrincipal(token) : null;
+				if (principal == null) {
+					principal = principalCache.getByEmail(username);
+				}
+				if (!jwtService.isValid(token, principal.getEmail())) {
+					outcome = "invalid";
+					reject(username, outcome, request);
+				} else if (jwtService.isRevoked(token)) {
+					outcome = "revoked";
+					reject(username, outcome, request);
+				} else {
+					outcome = "valid";
+					if (logger.isDebugEnabled() && logThrottle.sample()) {
+						logger.debug("JWT token is valid for user: {}", username);
+					}
+					UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(principal, null,
+							principal.getAuthorities());
+					authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+					SecurityContextHolder.getContext().setAuthentication(authToken);
+				}
 			}
+		} catch (RuntimeException e) {
+			outcome = "error";
+			reject(username, e.getClass().getSimpleName(), request);
+			throw e;
+		} finally {
+			sample.stop(Timer.builder("auth.token.validation")
+					.description("Time to parse and validate the bearer token of a request")
+					.tag("outcome", outcome)
+					.register(meterRegistry));
 		}
 		filterChain.doFilter(request, response);
 	}
+
+	private void reject(String username, String reason, HttpServletRequest request) {
+		authAuditLog.tokenRejected(username, reason);
+		// the audit trail has every rejection, the application log only needs to show that they happen
+		long dropped = logThrottle.permit("jwt." + reason);
+		if (dropped >= 0) {
+			logger.warn("Rejected {} JWT token for user: {} ({} similar suppressed)", reason, username, dropped);
+		}
+	}
 }
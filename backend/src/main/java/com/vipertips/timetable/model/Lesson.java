@@ -2,29 +2,46 @@ package com.vipertips.timetable.model;
 
 import java.time.LocalDateTime;
 
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+
+import jakarta.persistence.Cacheable;
 import jakarta.persistence.Entity;
+import jakarta.persistence.FetchType;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.PrePersist;
 import jakarta.persistence.PreUpdate;
+import jakarta.persistence.SequenceGenerator;
 import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
+import lombok.ToString;
 
 @Entity
-@Table(name = "lessons")
+@Table(name = "lessons", indexes = {
+		@Index(name = "idx_lessons_teacher_start", columnList = "teacher_id, start_time"),
+		@Index(name = "idx_lessons_status_start", columnList = "status, start_time")
+}, uniqueConstraints = @UniqueConstraint(name = "uk_lessons_series_occurrence", columnNames = { "series_id", "original_start" }))
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "lessons")
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 @Builder
 public class Lesson {
 	@Id
-	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	// pooled sequence instead of IDENTITY so Hibernate can batch inserts
+	@GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "lesson_seq")
+	@SequenceGenerator(name = "lesson_seq", sequenceName = "lessons_seq", allocationSize = 50)
 	private int lessonId;
 	private String title,lessonAbout;
 	private LocalDateTime startTime, endTime, createdAt, updatedAt;
@@ -34,6 +51,18 @@ public class Lesson {
 	
 	private Status status;
 
+	// reminder lease, so only one node sends the reminder for a lesson
+	private String claimedBy;
+	private LocalDateTime leaseUntil;
+
+	// set when this row is a stored occurrence of a recurring series
+	@ManyToOne(fetch = FetchType.LAZY)
+	@JoinColumn(name = "series_id")
+	@ToString.Exclude
+	@EqualsAndHashCode.Exclude
+	private LessonSeries series;
+	private LocalDateTime originalStart;
+
 	@PrePersist
 	protected void onCreate() {
 		createdAt = LocalDateTime.now();
@@ -46,6 +75,6 @@ public class Lesson {
 	}
 	
 	public enum Status{
-		SENT,PENDING,
+		SENT,PENDING,CLAIMED,
 	}
 }
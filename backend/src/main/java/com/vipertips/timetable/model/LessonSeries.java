@@ -0,0 +1,84 @@
+package com.vipertips.timetable.model;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.Set;
+
+import jakarta.persistence.CollectionTable;
+import jakarta.persistence.Column;
+import jakarta.persistence.ElementCollection;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.JoinColumn;
+import jakarta.persistence.ManyToOne;
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.PreUpdate;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * A recurring lesson stored as a rule. Occurrences are expanded on demand; only occurrences that
+ * are edited or about to be reminded are stored as {@link Lesson} rows pointing back here.
+ */
+@Entity
+@Table(name = "lesson_series", indexes = @Index(name = "idx_series_teacher", columnList = "teacher_id"))
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class LessonSeries {
+	@Id
+	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	private int seriesId;
+	private String title,lessonAbout;
+	// first occurrence, later ones keep its time of day and duration
+	private LocalDateTime startTime, endTime;
+
+	@Enumerated(EnumType.STRING)
+	private Frequency frequency;
+	// repeat every n days/weeks
+	private int intervalCount;
+	// comma separated DayOfWeek names for WEEKLY, defaults to the day of the first occurrence
+	private String byDays;
+	private LocalDate untilDate;
+	private Integer occurrenceCount;
+
+	// occurrences removed from the series
+	@ElementCollection
+	@CollectionTable(name = "lesson_series_exceptions", joinColumns = @JoinColumn(name = "series_id"))
+	@Column(name = "cancelled_start")
+	@Builder.Default
+	private Set<LocalDateTime> cancelledStarts = new HashSet<>();
+
+	@ManyToOne
+	@JoinColumn(referencedColumnName = "userId",name = "teacher_id",nullable = false)
+	private User user;
+
+	private LocalDateTime createdAt, updatedAt;
+
+	@PrePersist
+	protected void onCreate() {
+		createdAt = LocalDateTime.now();
+		updatedAt = LocalDateTime.now();
+	}
+
+	@PreUpdate
+	protected void onUpdate() {
+		updatedAt = LocalDateTime.now();
+	}
+
+	public enum Frequency {
+		DAILY,WEEKLY
+	}
+}
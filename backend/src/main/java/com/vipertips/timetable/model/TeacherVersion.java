@@ -0,0 +1,25 @@
+package com.vipertips.timetable.model;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Change counters behind the ETags of a teacher's lesson listings and profile. Kept in the database
+ * and bumped in the writing transaction, so every instance hands out the same tags; not in the
+ * second-level cache for the same reason.
+ */
+@Entity
+@Table(name = "teacher_versions")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TeacherVersion {
+	@Id
+	private int teacherId;
+	private long lessonsVersion;
+	private long profileVersion;
+}
@@ -4,6 +4,10 @@ import java.time.LocalDateTime;
 import java.util.Collection;
 import java.util.List;
 
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.NaturalId;
+import org.hibernate.annotations.NaturalIdCache;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -20,6 +24,9 @@ import lombok.Setter;
 
 @Entity
 @Table(name = "users")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "users")
+@NaturalIdCache(region = "users-by-email")
 @Getter
 @Setter
 @NoArgsConstructor
@@ -30,6 +37,7 @@ public class User  implements UserDetails{
 	@GeneratedValue(strategy = GenerationType.IDENTITY)
 	private int userId;
 	private String firstName,lastName,bio,subject;
+	@NaturalId
 	@Column(unique = true)
 	@NotNull(message = "Email should be provided")
 	private String email;
@@ -43,6 +51,10 @@ public class User  implements UserDetails{
 	@OneToMany(mappedBy = "user", cascade = CascadeType.ALL, orphanRemoval = true)
 	@JsonIgnore
 	private List<Lesson> lessons;
+
+	@OneToMany(mappedBy = "user", cascade = CascadeType.ALL, orphanRemoval = true)
+	@JsonIgnore
+	private List<LessonSeries> lessonSeries;
 	
 	@PrePersist
 	protected void onCreate() {
@@ -1,18 +1,127 @@
 package com.vipertips.timetable.repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import com.vipertips.timetable.dto.LessonDto;
+import com.vipertips.timetable.dto.LessonRow;
 import com.vipertips.timetable.model.Lesson;
+import com.vipertips.timetable.model.LessonSeries;
+import com.vipertips.timetable.model.Lesson.Status;
 
+/**
+ * The listings below are not query-cached: the reminder claims further down are bulk updates, and
+ * every bulk update of {@code lessons} invalidates all cached lesson query results and empties the
+ * {@code lessons} entity region. Reminders go out in batches whenever lessons come due, so cached
+ * results would rarely survive; repeat listing requests are answered by the ETags and the week cache.
+ */
 public interface LessonRepository extends JpaRepository<Lesson, Integer> {
 
 	Page<Lesson> findByUser_UserId(int teacherId,Pageable pageable);
 
 	List<Lesson> findByStartTimeBetween(LocalDateTime tenMinsLater, LocalDateTime thirtyMinsLater);
 
+	// a listing page as records, served by idx_lessons_teacher_start without touching users; no count
+	// query is attached, LessonService only counts when the page itself cannot tell the total
+	@Query("select new com.vipertips.timetable.dto.LessonRow(l.lessonId, l.title, l.lessonAbout, l.startTime, l.endTime)"
+			+ " from Lesson l where l.user.userId = :teacherId order by l.startTime desc, l.lessonId desc")
+	List<LessonRow> findRowsByTeacher(@Param("teacherId") int teacherId, Pageable page);
+
+	@Query("select count(l) from Lesson l where l.user.userId = :teacherId")
+	long countByTeacher(@Param("teacherId") int teacherId);
+
+	// keyset pagination, newest first; the List return type means no count query is issued
+	@Query("select new com.vipertips.timetable.dto.LessonRow(l.lessonId, l.title, l.lessonAbout, l.startTime, l.endTime)"
+			+ " from Lesson l where l.user.userId = :teacherId order by l.startTime desc, l.lessonId desc")
+	List<LessonRow> findRowsByTeacherFirst(@Param("teacherId") int teacherId, Pageable limit);
+
+	@Query("select new com.vipertips.timetable.dto.LessonRow(l.lessonId, l.title, l.lessonAbout, l.startTime, l.endTime)"
+			+ " from Lesson l where l.user.userId = :teacherId"
+			+ " and (l.startTime < :startTime or (l.startTime = :startTime and l.lessonId < :lessonId))"
+			+ " order by l.startTime desc, l.lessonId desc")
+	List<LessonRow> findRowsByTeacherAfter(@Param("teacherId") int teacherId, @Param("startTime") LocalDateTime startTime,
+			@Param("lessonId") int lessonId, Pageable limit);
+
+	// stays on LessonDto: LessonWeekCache merges these rows with expanded series occurrences, which
+	// carry seriesId and originalStart
+	@Query("select new com.vipertips.timetable.dto.LessonDto(l.lessonId, l.title, l.lessonAbout, l.startTime, l.endTime,"
+			+ " s.seriesId, l.originalStart)"
+			+ " from Lesson l left join l.series s where l.user.userId = :teacherId and l.startTime >= :from and l.startTime < :to"
+			+ " order by l.startTime, l.lessonId")
+	List<LessonDto> findDtosByTeacherAndStartTimeRange(@Param("teacherId") int teacherId,
+			@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+	// every lesson of the teacher, used to build the in-memory conflict index
+	@Query("select new com.vipertips.timetable.dto.LessonDto(l.lessonId, l.title, l.lessonAbout, l.startTime, l.endTime,"
+			+ " s.seriesId, l.originalStart)"
+			+ " from Lesson l left join l.series s where l.user.userId = :teacherId")
+	List<LessonDto> findAllDtosByTeacher(@Param("teacherId") int teacherId);
+
+	@Query("select new com.vipertips.timetable.dto.LessonDto(l.lessonId, l.title, l.lessonAbout, l.startTime, l.endTime,"
+			+ " s.seriesId, l.originalStart)"
+			+ " from Lesson l left join l.series s where l.user.userId = :teacherId and l.startTime < :end and l.endTime > :start")
+	List<LessonDto> findDtosOverlapping(@Param("teacherId") int teacherId, @Param("start") LocalDateTime start,
+			@Param("end") LocalDateTime end);
+
+	@Query("select l.originalStart from Lesson l where l.series = :series and l.originalStart >= :from and l.originalStart < :to")
+	List<LocalDateTime> findStoredOccurrences(@Param("series") LessonSeries series, @Param("from") LocalDateTime from,
+			@Param("to") LocalDateTime to);
+
+	Optional<Lesson> findBySeriesAndOriginalStart(LessonSeries series, LocalDateTime originalStart);
+
+	@Query("select l from Lesson l where l.series = :series and l.startTime > :after and l.status = :status")
+	List<Lesson> findBySeriesStartingAfter(@Param("series") LessonSeries series, @Param("after") LocalDateTime after,
+			@Param("status") Status status);
+
+	@Transactional
+	@Modifying(clearAutomatically = true)
+	@Query("update Lesson l set l.series = null where l.series = :series")
+	int detachFromSeries(@Param("series") LessonSeries series);
+
+	/**
+	 * Lessons due for a reminder in the window: still PENDING, or CLAIMED by a node whose lease ran out.
+	 */
+	@Query("select l from Lesson l join fetch l.user where l.startTime between :from and :to"
+			+ " and (l.status = :pending or (l.status = :claimed and l.leaseUntil < :now))")
+	List<Lesson> findReminderCandidates(@Param("pending") Status pending, @Param("claimed") Status claimed,
+			@Param("now") LocalDateTime now, @Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+	// a bulk update, so Hibernate evicts the whole lessons region; cheaper than loading the batch first
+	@Transactional
+	@Modifying(clearAutomatically = true)
+	// only lessons still starting inside the reminder window: a lesson moved on another node may sit
+	// in this node's queue under its old time
+	@Query("update Lesson l set l.status = :claimed, l.claimedBy = :node, l.leaseUntil = :leaseUntil"
+			+ " where l.lessonId in :ids and (l.status = :pending or (l.status = :claimed and l.leaseUntil < :now))"
+			+ " and l.startTime between :earliest and :latest")
+	int claimForReminder(@Param("pending") Status pending, @Param("claimed") Status claimed,
+			@Param("ids") Collection<Integer> ids, @Param("node") String node,
+			@Param("now") LocalDateTime now, @Param("leaseUntil") LocalDateTime leaseUntil,
+			@Param("earliest") LocalDateTime earliest, @Param("latest") LocalDateTime latest);
+
+	@Query("select l from Lesson l where l.lessonId in :ids and l.status = :status")
+	List<Lesson> findByIdsAndStatus(@Param("ids") Collection<Integer> ids, @Param("status") Status status);
+
+	@Query("select l from Lesson l join fetch l.user where l.lessonId in :ids and l.claimedBy = :node"
+			+ " and l.status = :claimed")
+	List<Lesson> findWithTeacherClaimedBy(@Param("claimed") Status claimed, @Param("ids") Collection<Integer> ids,
+			@Param("node") String node);
+
+	@Transactional
+	@Modifying(clearAutomatically = true)
+	@Query("update Lesson l set l.status = :status, l.claimedBy = null, l.leaseUntil = null, l.updatedAt = :now"
+			+ " where l.lessonId in :ids and l.claimedBy = :node")
+	int releaseClaims(@Param("ids") Collection<Integer> ids, @Param("node") String node,
+			@Param("status") Status status, @Param("now") LocalDateTime now);
+
 }
@@ -0,0 +1,32 @@
+package com.vipertips.timetable.repository;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import com.vipertips.timetable.model.LessonSeries;
+
+public interface LessonSeriesRepository extends JpaRepository<LessonSeries, Integer> {
+
+	@Query("select s from LessonSeries s left join fetch s.cancelledStarts where s.seriesId = :seriesId")
+	Optional<LessonSeries> findWithCancelledStarts(@Param("seriesId") int seriesId);
+
+	@Query("select distinct s from LessonSeries s left join fetch s.cancelledStarts where s.user.userId = :teacherId")
+	List<LessonSeries> findByTeacher(@Param("teacherId") int teacherId);
+
+	// series that may have occurrences in [from, to)
+	@Query("select distinct s from LessonSeries s left join fetch s.cancelledStarts where s.user.userId = :teacherId"
+			+ " and s.startTime < :to and (s.untilDate is null or s.untilDate >= :fromDate)")
+	List<LessonSeries> findActiveForTeacher(@Param("teacherId") int teacherId, @Param("fromDate") LocalDate fromDate,
+			@Param("to") LocalDateTime to);
+
+	@Query("select distinct s from LessonSeries s left join fetch s.cancelledStarts join fetch s.user"
+			+ " where s.startTime < :to and (s.untilDate is null or s.untilDate >= :fromDate)")
+	List<LessonSeries> findActive(@Param("fromDate") LocalDate fromDate, @Param("to") LocalDateTime to);
+
+}
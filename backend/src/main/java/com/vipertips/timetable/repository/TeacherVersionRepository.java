@@ -0,0 +1,35 @@
+package com.vipertips.timetable.repository;
+
+import java.util.Optional;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.vipertips.timetable.model.TeacherVersion;
+
+public interface TeacherVersionRepository extends JpaRepository<TeacherVersion, Integer> {
+
+	// joins the caller's transaction, so the bump commits or rolls back with the write
+	@Transactional
+	@Modifying
+	@Query("update TeacherVersion v set v.lessonsVersion = v.lessonsVersion + 1 where v.teacherId = :teacherId")
+	int bumpLessons(@Param("teacherId") int teacherId);
+
+	@Transactional
+	@Modifying
+	@Query("update TeacherVersion v set v.profileVersion = v.profileVersion + 1 where v.teacherId = :teacherId")
+	int bumpProfile(@Param("teacherId") int teacherId);
+
+	// read-only, so with a replica the version comes from the same place as the data it describes
+	@Transactional(readOnly = true)
+	@Query("select v.lessonsVersion from TeacherVersion v where v.teacherId = :teacherId")
+	Optional<Long> findLessonsVersion(@Param("teacherId") int teacherId);
+
+	@Transactional(readOnly = true)
+	@Query("select v.profileVersion from TeacherVersion v where v.teacherId = :teacherId")
+	Optional<Long> findProfileVersion(@Param("teacherId") int teacherId);
+
+}
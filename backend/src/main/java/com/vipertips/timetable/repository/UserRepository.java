@@ -1,15 +1,16 @@
 package com.vipertips.timetable.repository;
 
-import java.util.Optional;
+import java.util.List;
 
 import org.springframework.data.jpa.repository.JpaRepository;
 
 import com.vipertips.timetable.model.User;
+import com.vipertips.timetable.model.User.Role;
 
-public interface UserRepository extends JpaRepository<User, Integer>{
-
-	Optional<User> findByEmail(String email);
+public interface UserRepository extends JpaRepository<User, Integer>, UserRepositoryCustom {
 
 	boolean existsByEmail(String email);
 
+	List<User> findByRole(Role role);
+
 }
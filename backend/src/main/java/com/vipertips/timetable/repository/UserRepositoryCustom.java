@@ -0,0 +1,15 @@
+package com.vipertips.timetable.repository;
+
+import java.util.Optional;
+
+import com.vipertips.timetable.model.User;
+
+public interface UserRepositoryCustom {
+
+	/**
+	 * Looks the user up by natural id, so repeated logins and profile reads are answered from the
+	 * second-level cache instead of a query.
+	 */
+	Optional<User> findByEmail(String email);
+
+}
@@ -0,0 +1,28 @@
+package com.vipertips.timetable.repository;
+
+import java.util.Optional;
+
+import org.hibernate.Session;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.vipertips.timetable.model.User;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+
+public class UserRepositoryCustomImpl implements UserRepositoryCustom {
+
+	@PersistenceContext
+	private EntityManager entityManager;
+
+	// not read-only: login, refresh and the principal lookup must see the primary, never a lagging replica
+	@Override
+	@Transactional
+	public Optional<User> findByEmail(String email) {
+		if (email == null) {
+			return Optional.empty();
+		}
+		return entityManager.unwrap(Session.class).bySimpleNaturalId(User.class).loadOptional(email);
+	}
+
+}
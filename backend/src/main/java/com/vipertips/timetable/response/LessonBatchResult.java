@@ -0,0 +1,28 @@
+package com.vipertips.timetable.response;
+
+import com.vipertips.timetable.dto.LessonDto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class LessonBatchResult {
+	public enum Operation {
+		CREATE, UPDATE, DELETE
+	}
+
+	private Operation operation;
+	// position of the item in its list of the request
+	private int index;
+	private Integer lessonId;
+	private boolean success;
+	private String message;
+	private LessonDto lesson;
+}
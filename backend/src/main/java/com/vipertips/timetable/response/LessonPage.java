@@ -0,0 +1,92 @@
+package com.vipertips.timetable.response;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.type.WritableTypeId;
+import com.fasterxml.jackson.databind.JsonSerializable;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.jsontype.TypeSerializer;
+import com.vipertips.timetable.dto.LessonRow;
+
+/**
+ * A page of lessons that writes itself to the response's JSON generator: no bean introspection and
+ * none of Spring Data's Pageable/Sort metadata. The fields match what a serialized Page used to
+ * carry, so clients reading content/number/totalPages keep working.
+ */
+public class LessonPage implements JsonSerializable {
+
+	private final List<LessonRow> content;
+	private final int number;
+	private final int size;
+	private final long totalElements;
+
+	public LessonPage(List<LessonRow> content, int number, int size, long totalElements) {
+		this.content = content;
+		this.number = number;
+		this.size = size;
+		this.totalElements = totalElements;
+	}
+
+	public List<LessonRow> getContent() {
+		return content;
+	}
+
+	public long getTotalElements() {
+		return totalElements;
+	}
+
+	public int getTotalPages() {
+		return size == 0 ? 1 : (int) Math.ceil((double) totalElements / size);
+	}
+
+	@Override
+	public void serialize(JsonGenerator gen, SerializerProvider serializers) throws IOException {
+		gen.writeStartObject();
+		writeFields(gen);
+		gen.writeEndObject();
+	}
+
+	@Override
+	public void serializeWithType(JsonGenerator gen, SerializerProvider serializers, TypeSerializer typeSer)
+			throws IOException {
+		WritableTypeId typeId = typeSer.writeTypePrefix(gen, typeSer.typeId(this, JsonToken.START_OBJECT));
+		writeFields(gen);
+		typeSer.writeTypeSuffix(gen, typeId);
+	}
+
+	private void writeFields(JsonGenerator gen) throws IOException {
+		gen.writeArrayFieldStart("content");
+		for (LessonRow row : content) {
+			gen.writeStartObject();
+			gen.writeNumberField("lessonId", row.lessonId());
+			gen.writeStringField("title", row.title());
+			gen.writeStringField("lessonAbout", row.lessonAbout());
+			writeDateTime(gen, "startTime", row.startTime());
+			writeDateTime(gen, "endTime", row.endTime());
+			gen.writeEndObject();
+		}
+		gen.writeEndArray();
+		gen.writeNumberField("number", number);
+		gen.writeNumberField("size", size);
+		gen.writeNumberField("numberOfElements", content.size());
+		gen.writeNumberField("totalElements", totalElements);
+		gen.writeNumberField("totalPages", getTotalPages());
+		gen.writeBooleanField("first", number == 0);
+		gen.writeBooleanField("last", number + 1 >= getTotalPages());
+		gen.writeBooleanField("empty", content.isEmpty());
+	}
+
+	// the format Jackson's JavaTimeModule writes by default, e.g. 2025-06-02T09:00:00
+	private static void writeDateTime(JsonGenerator gen, String field, LocalDateTime value) throws IOException {
+		if (value == null) {
+			gen.writeNullField(field);
+		} else {
+			gen.writeStringField(field, DateTimeFormatter.ISO_LOCAL_DATE_TIME.format(value));
+		}
+	}
+}
@@ -0,0 +1,71 @@
+package com.vipertips.timetable.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.spi.LoggingEventBuilder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import jakarta.servlet.http.HttpServletRequest;
+
+/**
+ * Security audit trail. Everything goes to the {@code AUDIT} logger, which is never sampled or
+ * rate-limited and in the prod profile is written to its own file. Events carry key/value pairs so
+ * structured output can be searched by event, user and client address.
+ */
+@Component
+public class AuthAuditLog {
+	private static final Logger audit = LoggerFactory.getLogger("AUDIT");
+
+	public void loginSucceeded(String email) {
+		event(audit.atInfo(), "login.success", email).log("Login succeeded for {}", email);
+	}
+
+	public void loginFailed(String email, String reason) {
+		event(audit.atWarn(), "login.failure", email)
+				.addKeyValue("reason", reason)
+				.log("Login failed for {}: {}", email, reason);
+	}
+
+	public void tokenRejected(String username, String reason) {
+		event(audit.atWarn(), "token.rejected", username)
+				.addKeyValue("reason", reason)
+				.log("Bearer token rejected for {}: {}", username, reason);
+	}
+
+	public void refreshRejected(String username, String reason) {
+		event(audit.atWarn(), "refresh.rejected", username)
+				.addKeyValue("reason", reason)
+				.log("Refresh token rejected for {}: {}", username, reason);
+	}
+
+	public void loggedOut(String username) {
+		event(audit.atInfo(), "logout", username).log("Token revoked on logout for {}", username);
+	}
+
+	private LoggingEventBuilder event(LoggingEventBuilder builder, String event, String user) {
+		builder.addKeyValue("event", event).addKeyValue("user", user);
+		HttpServletRequest request = currentRequest();
+		if (request != null) {
+			builder.addKeyValue("client", clientAddress(request))
+					.addKeyValue("path", request.getRequestURI());
+		}
+		return builder;
+	}
+
+	private HttpServletRequest currentRequest() {
+		return RequestContextHolder.getRequestAttributes() instanceof ServletRequestAttributes attributes
+				? attributes.getRequest()
+				: null;
+	}
+
+	private String clientAddress(HttpServletRequest request) {
+		String forwarded = request.getHeader("X-Forwarded-For");
+		if (forwarded != null && !forwarded.isBlank()) {
+			int comma = forwarded.indexOf(',');
+			return (comma < 0 ? forwarded : forwarded.substring(0, comma)).trim();
+		}
+		return request.getRemoteAddr();
+	}
+}
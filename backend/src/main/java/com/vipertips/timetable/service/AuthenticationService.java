@@ -3,6 +3,7 @@ package com.vipertips.timetable.service;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.AuthenticationException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
@@ -30,6 +31,9 @@ public class AuthenticationService {
 	@Autowired
 	private JwtService jwtService;
 
+	@Autowired
+	private AuthAuditLog authAuditLog;
+
 	public AuthenticationResponse registerUser(UserDto req) {
 		if (req.getPassword().isEmpty()) {
 			throw new RuntimeException("Passwords is required");
@@ -73,7 +77,12 @@ public class AuthenticationService {
 	}
 
 	public AuthenticationResponse authenticate(LoginDto req) {
-		authenticationManager.authenticate(new UsernamePasswordAuthenticationToken(req.getEmail(), req.getPassword()));
+		try {
+			authenticationManager.authenticate(new UsernamePasswordAuthenticationToken(req.getEmail(), req.getPassword()));
+		} catch (AuthenticationException e) {
+			authAuditLog.loginFailed(req.getEmail(), e.getClass().getSimpleName());
+			throw e;
+		}
 
 		User user = userRepository.findByEmail(req.getEmail())
 				.orElseThrow(() -> new RuntimeException("User not found"));
@@ -87,14 +96,32 @@ public class AuthenticationService {
 				.userData(user)
 				.build();
 
+		authAuditLog.loginSucceeded(user.getEmail());
 		return authResponse;
 	}
 
+	/**
+	 * Revokes the access token and, when the client sends it, the refresh token as well, so the session
+	 * cannot be renewed after logging out. The refresh token must belong to the same user.
+	 */
+	public void logout(String token, String refreshToken) {
+		String username = jwtService.extractUsername(token);
+		if (refreshToken != null && !refreshToken.isBlank()) {
+			if (!username.equals(jwtService.extractUsername(refreshToken))) {
+				throw new RuntimeException("Refresh token belongs to another user");
+			}
+			jwtService.revoke(refreshToken);
+		}
+		jwtService.revoke(token);
+		authAuditLog.loggedOut(username);
+	}
+
 	public AuthenticationResponse refreshToken(String refreshToken) {
 		String username = jwtService.extractUsername(refreshToken);
 		User user = userRepository.findByEmail(username).orElseThrow(() -> new RuntimeException("User not found"));
 
-		if (!jwtService.isValid(refreshToken, user)) {
+		if (!jwtService.isValid(refreshToken, user) || jwtService.isRevoked(refreshToken)) {
+			authAuditLog.refreshRejected(username, "invalid or revoked");
 			throw new RuntimeException("Invalid refresh token");
 		}
 
@@ -1,23 +1,30 @@
 package com.vipertips.timetable.service;
 
-import jakarta.mail.internet.InternetAddress;
-import jakarta.mail.internet.MimeMessage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.core.io.ClassPathResource;
-import org.springframework.mail.javamail.JavaMailSender;
-import org.springframework.mail.javamail.MimeMessageHelper;
 import org.springframework.stereotype.Service;
 
-import java.io.IOException;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.charset.*;
+import com.vipertips.timetable.service.MailQueue.OutboundEmail;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.Map;
+import java.util.Objects;
 
 @Service
 public class EmailSender {
+    private static final Logger logger = LoggerFactory.getLogger(EmailSender.class);
+
+    @Autowired
+    private MailQueue mailQueue;
 
     @Autowired
-    private JavaMailSender javaMailSender;
+    private EmailTemplates emailTemplates;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
 
     private static final String SUPPORT_EMAIL = "support@timetable.zim";
     private static final String APP_NAME = "Timetable Pro";
@@ -25,32 +32,34 @@ public class EmailSender {
     private static final String ADMIN_EMAIL = "admin@timetable.zim";
 
     public void sendEmail(String toEmail, String subject, String username, String messageBody, String actionText) {
-        try {
-            // Load the HTML template
-            String htmlTemplate = loadEmailTemplate();
-
-            // Replacing placeholders
-            String htmlBody = htmlTemplate
-                    .replace("${subject}", subject)
-                    .replace("${username}", username)
-                    .replace("${message}", messageBody)
-                    .replace("${actionLink}", ACTION_LINK)
-                    .replace("${actionText}", actionText)
-                    .replace("${appName}", APP_NAME);
+        sendEmail(EmailTemplates.DEFAULT, toEmail, subject, username, messageBody, actionText);
+    }
 
-            // Prepare email
-            MimeMessage message = javaMailSender.createMimeMessage();
-            MimeMessageHelper helper = new MimeMessageHelper(message, true);
-            helper.setFrom(new InternetAddress(SUPPORT_EMAIL, APP_NAME));
-            helper.setTo(toEmail);
-            helper.setSubject(subject);
-            helper.setText(htmlBody, true);
+    private void sendEmail(String template, String toEmail, String subject, String username, String messageBody, String actionText) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String result = "failed";
+        try {
+            // Render the pre-compiled template in one pass
+            String htmlBody = emailTemplates.render(template, Map.of(
+                    "subject", Objects.toString(subject, ""),
+                    "username", Objects.toString(username, ""),
+                    "message", Objects.toString(messageBody, ""),
+                    "actionLink", ACTION_LINK,
+                    "actionText", Objects.toString(actionText, ""),
+                    "appName", APP_NAME));
 
-            // Send
-            javaMailSender.send(message);
-            System.out.println("Email sent successfully to " + toEmail);
+            // Hand over to the mail workers, delivery and retries happen off the caller's thread
+            boolean queued = mailQueue.enqueue(new OutboundEmail(SUPPORT_EMAIL, APP_NAME, toEmail, subject, htmlBody, 0));
+            result = queued ? "queued" : "rejected";
         } catch (Exception e) {
-            System.err.println("Failed to send email to " + toEmail + ": " + e.getMessage());
+            logger.error("Failed to queue email to {}: {}", toEmail, e.getMessage(), e);
+        } finally {
+            // render and hand-over only, SMTP latency is email.delivery
+            sample.stop(Timer.builder("email.send")
+                    .description("Time to render an email and queue it for delivery")
+                    .tag("template", template)
+                    .tag("result", result)
+                    .register(meterRegistry));
         }
     }
 
@@ -58,14 +67,14 @@ public class EmailSender {
         String subject = APP_NAME + " - Welcome to Your Timetable!";
         String messageBody = "Thanks for signing up! Start organizing your schedule with ease.";
         String actionText = "Get Started";
-        sendEmail(userEmail, subject, username, messageBody, actionText);
+        sendEmail(EmailTemplates.WELCOME, userEmail, subject, username, messageBody, actionText);
     }
 
     public void sendAdminNotification(String userEmail, String username) {
         String subject = APP_NAME + " - New User Registered";
         String messageBody = "A new user just signed up: " + username + " (" + userEmail + ")";
         String actionText = "Review Users";
-        sendEmail(ADMIN_EMAIL, subject, "Admin", messageBody, actionText);
+        sendEmail(EmailTemplates.ADMIN, ADMIN_EMAIL, subject, "Admin", messageBody, actionText);
     }
     
     public void sendLessonReminderEmail(String userEmail, String username, String lessonName, String lessonTime, int minutesBefore) {
@@ -77,12 +86,6 @@ public class EmailSender {
         );
         String actionText = "View Timetable";
 
-        sendEmail(userEmail, subject, username, messageBody, actionText);
-    }
-
-
-    private String loadEmailTemplate() throws IOException {
-        Path templatePath = new ClassPathResource("templates/email-template.html").getFile().toPath();
-        return Files.readString(templatePath, StandardCharsets.UTF_8);
+        sendEmail(EmailTemplates.REMINDER, userEmail, subject, username, messageBody, actionText);
     }
 }
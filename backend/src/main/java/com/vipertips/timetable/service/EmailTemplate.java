@@ -0,0 +1,64 @@
+package com.vipertips.timetable.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An HTML template split once into literal and {@code ${placeholder}} segments, so rendering is a
+ * single append pass instead of one full copy of the body per placeholder.
+ */
+public final class EmailTemplate {
+
+	private final String[] literals;
+	private final String[] placeholders;
+	private final int literalLength;
+
+	private EmailTemplate(String[] literals, String[] placeholders) {
+		this.literals = literals;
+		this.placeholders = placeholders;
+		int length = 0;
+		for (String literal : literals) {
+			length += literal.length();
+		}
+		this.literalLength = length;
+	}
+
+	public static EmailTemplate compile(String source) {
+		List<String> literals = new ArrayList<>();
+		List<String> placeholders = new ArrayList<>();
+		int cursor = 0;
+		while (true) {
+			int open = source.indexOf("${", cursor);
+			int close = open < 0 ? -1 : source.indexOf('}', open + 2);
+			if (close < 0) {
+				break;
+			}
+			literals.add(source.substring(cursor, open));
+			placeholders.add(source.substring(open + 2, close));
+			cursor = close + 1;
+		}
+		literals.add(source.substring(cursor));
+		return new EmailTemplate(literals.toArray(String[]::new), placeholders.toArray(String[]::new));
+	}
+
+	/**
+	 * Renders the template into a buffer sized from the literal text up front, so it rarely has to
+	 * grow. Placeholders without a value are written back unchanged, matching the old
+	 * {@code String.replace} behaviour.
+	 */
+	public String render(Map<String, String> values) {
+		StringBuilder out = new StringBuilder(literalLength + placeholders.length * 32);
+		for (int i = 0; i < placeholders.length; i++) {
+			out.append(literals[i]);
+			String value = values.get(placeholders[i]);
+			if (value != null) {
+				out.append(value);
+			} else {
+				out.append("${").append(placeholders[i]).append('}');
+			}
+		}
+		out.append(literals[placeholders.length]);
+		return out.toString();
+	}
+}
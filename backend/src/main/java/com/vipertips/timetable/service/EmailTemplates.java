@@ -0,0 +1,55 @@
+package com.vipertips.timetable.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Named, pre-compiled email templates. A template called {@code name} is read from
+ * {@code templates/email-<name>.html} when present, otherwise from the shared
+ * {@code templates/email-template.html} layout.
+ */
+@Component
+public class EmailTemplates {
+
+	public static final String DEFAULT = "default";
+	public static final String WELCOME = "welcome";
+	public static final String ADMIN = "admin";
+	public static final String REMINDER = "reminder";
+
+	private static final String BASE_TEMPLATE = "templates/email-template.html";
+
+	private final Map<String, EmailTemplate> templates = new HashMap<>();
+
+	@PostConstruct
+	void load() {
+		EmailTemplate base = EmailTemplate.compile(read(new ClassPathResource(BASE_TEMPLATE)));
+		templates.put(DEFAULT, base);
+		for (String name : List.of(WELCOME, ADMIN, REMINDER)) {
+			ClassPathResource override = new ClassPathResource("templates/email-" + name + ".html");
+			templates.put(name, override.exists() ? EmailTemplate.compile(read(override)) : base);
+		}
+	}
+
+	public String render(String name, Map<String, String> values) {
+		return templates.getOrDefault(name, templates.get(DEFAULT)).render(values);
+	}
+
+	private static String read(ClassPathResource resource) {
+		// stream rather than getFile() so the templates also load from inside the packaged jar
+		try (InputStream in = resource.getInputStream()) {
+			return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+		} catch (IOException e) {
+			throw new UncheckedIOException("Could not load email template " + resource.getPath(), e);
+		}
+	}
+}
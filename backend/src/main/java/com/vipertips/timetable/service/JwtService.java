@@ -2,47 +2,132 @@ package com.vipertips.timetable.service;
 
 import java.security.Key;
 import java.util.Date;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Service;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.vipertips.timetable.dto.AuthenticatedUser;
+import com.vipertips.timetable.model.User;
+import com.vipertips.timetable.model.User.Role;
 
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.io.Decoders;
 import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
 
 @Service
 public class JwtService {
-	private static final Logger logger = LoggerFactory.getLogger(Logger.class);
+	private static final Logger logger = LoggerFactory.getLogger(JwtService.class);
+
+	static final String USER_ID_CLAIM = "uid";
+	static final String ROLE_CLAIM = "role";
+
+	@Autowired
+	private TokenDenyList tokenDenyList;
+
+	@Autowired
+	private MeterRegistry meterRegistry;
 
 	@Value("${jwt.secret}")
 	private String SECRET_KEY;
 
+	@Value("${jwt.claims-cache.max-size:10000}")
+	private long claimsCacheMaxSize;
+
 	private final long EXPIRATION_TIME = 86400000L;
 	private final long REFRESH_EXPIRATION_TIME = 604800000L;
+
+	private Key signKey;
+	private JwtParser jwtParser;
+
+	// Verified claims keyed by the raw token, each entry lives exactly until the token's own expiry
+	private Cache<String, Claims> claimsCache;
+
+	// signature verification and parsing, paid only on claims cache misses
+	private Timer parseTimer;
+
+	@PostConstruct
+	void init() {
+		signKey = Keys.hmacShaKeyFor(Decoders.BASE64.decode(SECRET_KEY));
+		jwtParser = Jwts.parserBuilder().setSigningKey(signKey).build();
+		claimsCache = Caffeine.newBuilder()
+				.maximumSize(claimsCacheMaxSize)
+				.expireAfter(new Expiry<String, Claims>() {
+					@Override
+					public long expireAfterCreate(String token, Claims claims, long currentTime) {
+						long millisLeft = claims.getExpiration().getTime() - System.currentTimeMillis();
+						return TimeUnit.MILLISECONDS.toNanos(Math.max(0, millisLeft));
+					}
+
+					@Override
+					public long expireAfterUpdate(String token, Claims claims, long currentTime, long currentDuration) {
+						return currentDuration;
+					}
+
+					@Override
+					public long expireAfterRead(String token, Claims claims, long currentTime, long currentDuration) {
+						return currentDuration;
+					}
+				})
+				.recordStats()
+				.build();
+		CaffeineCacheMetrics.monitor(meterRegistry, claimsCache, "jwt.claims");
+		parseTimer = Timer.builder("jwt.parse")
+				.description("Time to verify and parse a token not found in the claims cache")
+				.register(meterRegistry);
+	}
 	
 	public String extractUsername(String token) {
         return extractClaim(token, Claims::getSubject);
     }
 
     public boolean isValid(String token, UserDetails userDetails) {
-        String username = extractUsername(token);
-        boolean valid = username.equals(userDetails.getUsername()) && !isTokenExpired(token);
-        logger.info("Token validation status: {} for user: {}", valid, username);
+        return isValid(token, userDetails.getUsername());
+    }
+
+    public boolean isValid(String token, String expectedUsername) {
+        Claims claims = extractClaims(token);
+        String username = claims.getSubject();
+        boolean valid = username.equals(expectedUsername) && !claims.getExpiration().before(new Date());
+        logger.debug("Token validation status: {} for user: {}", valid, username);
         return valid;
     }
 
-    private boolean isTokenExpired(String token) {
-        return extractExpiration(token).before(new Date());
+    public boolean isRevoked(String token) {
+        return tokenDenyList.isRevoked(extractClaims(token));
     }
 
-    private Date extractExpiration(String token) {
-        return extractClaim(token, Claims::getExpiration);
+    public void revoke(String token) {
+        tokenDenyList.revoke(extractClaims(token));
+    }
+
+    /**
+     * Builds the principal straight from the signed claims, or returns null for tokens
+     * issued without the user id and role claims.
+     */
+    public AuthenticatedUser extractPrincipal(String token) {
+        Claims claims = extractClaims(token);
+        Integer userId = claims.get(USER_ID_CLAIM, Integer.class);
+        String role = claims.get(ROLE_CLAIM, String.class);
+        if (userId == null || role == null) {
+            return null;
+        }
+        return new AuthenticatedUser(userId, claims.getSubject(), Role.valueOf(role));
     }
 
     public <T> T extractClaim(String token, Function<Claims, T> resolver) {
@@ -53,36 +138,38 @@ public class JwtService {
 	
 	
 	private Claims extractClaims(String token) {
-		return Jwts.parserBuilder().setSigningKey(getSignKey())
-				.build().parseClaimsJws(token).getBody();
+		// parse failures (bad signature, expired) propagate as before and are never cached
+		return claimsCache.get(token, t -> parseTimer.record(() -> jwtParser.parseClaimsJws(t).getBody()));
 	}
 	
 	public String generateToken(UserDetails userDetails) {
-		String token = Jwts.builder()
+		var builder = Jwts.builder();
+		if (userDetails instanceof User user) {
+			// lets the filter authenticate from the token alone in stateless mode
+			builder.claim(USER_ID_CLAIM, user.getUserId())
+					.claim(ROLE_CLAIM, user.getRole().name());
+		}
+		String token = builder
+				.setId(UUID.randomUUID().toString())
 				.setSubject(userDetails.getUsername())
 				.setIssuedAt(new Date(System.currentTimeMillis()))
 				.setExpiration(new Date(System.currentTimeMillis() + EXPIRATION_TIME))
-				.signWith(getSignKey())
+				.signWith(signKey)
 				.compact();
-				logger.info("Generated JWT Token for user: {}", userDetails.getUsername());
+				logger.debug("Generated JWT Token for user: {}", userDetails.getUsername());
         return token;
 				
 	}
 	
 	 public String generateRefreshToken(UserDetails userDetails) {
 	        String refreshToken = Jwts.builder()
+	                .setId(UUID.randomUUID().toString())
 	                .setSubject(userDetails.getUsername())
 	                .setIssuedAt(new Date(System.currentTimeMillis()))
 	                .setExpiration(new Date(System.currentTimeMillis() + REFRESH_EXPIRATION_TIME))
-	                .signWith(getSignKey())
+	                .signWith(signKey)
 	                .compact();
-	        logger.info("Generated Refresh Token for user: {}", userDetails.getUsername());
+	        logger.debug("Generated Refresh Token for user: {}", userDetails.getUsername());
 	        return refreshToken;
 	    }
-
-
-	private Key getSignKey() {
-		byte[] keyBytes = Decoders.BASE64.decode(SECRET_KEY);
-		return Keys.hmacShaKeyFor(keyBytes);
-	}
 }
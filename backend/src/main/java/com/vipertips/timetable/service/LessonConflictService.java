@@ -0,0 +1,257 @@
+package com.vipertips.timetable.service;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.vipertips.timetable.dto.LessonDto;
+import com.vipertips.timetable.dto.TimeSlotDto;
+import com.vipertips.timetable.model.LessonSeries;
+import com.vipertips.timetable.repository.LessonRepository;
+import com.vipertips.timetable.repository.LessonSeriesRepository;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Double-booking checks. Read paths (the conflicts endpoint, free slots) use a per-teacher
+ * {@link LessonIntervalIndex}, built lazily from the database and kept in step by this instance's
+ * write paths; writes made by other instances reach it through {@link ResourceVersions} or when the
+ * entry expires. The checks that guard a write query the database instead, so they see every stored
+ * lesson. Occurrences of recurring series that are not stored yet are expanded for the checked window only.
+ *
+ * The check and the write it guards are made atomic by {@link #lockFor}, which is local to the
+ * instance: two instances writing for the same teacher at the same moment can still both pass.
+ */
+@Service
+public class LessonConflictService {
+
+	@Autowired
+	private LessonRepository lessonRepository;
+
+	@Autowired
+	private LessonSeriesRepository lessonSeriesRepository;
+
+	@Autowired
+	private MeterRegistry meterRegistry;
+
+	@Value("${lesson.conflicts.enforce:true}")
+	private boolean enforce;
+
+	@Value("${lesson.conflicts.index-max-teachers:5000}")
+	private long maxTeachers;
+
+	@Value("${lesson.conflicts.index-max-age-minutes:10}")
+	private long maxAgeMinutes;
+
+	private Cache<Integer, LessonIntervalIndex> indexes;
+
+	// check-then-save has to be atomic per teacher; striped so unrelated teachers rarely contend
+	private final ReentrantLock[] locks = new ReentrantLock[64];
+
+	@PostConstruct
+	void init() {
+		indexes = Caffeine.newBuilder()
+				.maximumSize(maxTeachers)
+				.expireAfterWrite(maxAgeMinutes, TimeUnit.MINUTES)
+				.recordStats()
+				.build();
+		CaffeineCacheMetrics.monitor(meterRegistry, indexes, "lesson.conflict-index");
+		for (int i = 0; i < locks.length; i++) {
+			locks[i] = new ReentrantLock();
+		}
+	}
+
+	/**
+	 * Lock to hold around a conflict check and the write it guards. Not a monitor: the write blocks
+	 * on JDBC, and a virtual thread blocking inside synchronized would pin its carrier thread.
+	 */
+	public Lock lockFor(int teacherId) {
+		return locks[Math.floorMod(teacherId, locks.length)];
+	}
+
+	public boolean isEnforced() {
+		return enforce;
+	}
+
+	/**
+	 * Lessons and series occurrences of the teacher overlapping [start, end).
+	 */
+	public List<LessonDto> findConflicts(int teacherId, LocalDateTime start, LocalDateTime end, Integer excludeLessonId) {
+		List<LessonDto> conflicts = new ArrayList<>(index(teacherId).overlapping(start, end, excludeLessonId));
+		List<LessonSeries> series = lessonSeriesRepository.findActiveForTeacher(teacherId, start.toLocalDate().minusDays(1), end);
+		conflicts.addAll(seriesOccurrences(series, start, end, conflicts));
+		conflicts.sort(Comparator.comparing(LessonDto::getStartTime));
+		return conflicts;
+	}
+
+	/**
+	 * Throws when [start, end) overlaps another lesson of the teacher and enforcement is on. Stored
+	 * lessons are read from the database; when they disagree with the index, the index is dropped.
+	 */
+	public void checkFree(int teacherId, LocalDateTime start, LocalDateTime end, Integer excludeLessonId) {
+		if (!enforce || start == null || end == null) {
+			return;
+		}
+		List<LessonDto> conflicts = new ArrayList<>(lessonRepository.findDtosOverlapping(teacherId, start, end));
+		if (excludeLessonId != null) {
+			conflicts.removeIf(lesson -> lesson.getLessonId() == excludeLessonId);
+		}
+		LessonIntervalIndex cached = indexes.getIfPresent(teacherId);
+		if (cached != null && !ids(cached.overlapping(start, end, excludeLessonId)).equals(ids(conflicts))) {
+			indexes.invalidate(teacherId);
+		}
+		List<LessonSeries> series = lessonSeriesRepository.findActiveForTeacher(teacherId, start.toLocalDate().minusDays(1), end);
+		conflicts.addAll(seriesOccurrences(series, start, end, conflicts));
+		conflicts.sort(Comparator.comparing(LessonDto::getStartTime));
+		if (!conflicts.isEmpty()) {
+			LessonDto first = conflicts.get(0);
+			throw new RuntimeException("Lesson overlaps with '" + first.getTitle() + "' (" + first.getStartTime()
+					+ " - " + first.getEndTime() + ")");
+		}
+	}
+
+	/**
+	 * Throws when an occurrence of {@code series} starting in [from, to) overlaps another lesson of the
+	 * teacher and enforcement is on. The series' own occurrences are ignored, stored or not: they are
+	 * the ones being replaced.
+	 */
+	public void checkSeriesFree(int teacherId, LessonSeries series, LocalDateTime from, LocalDateTime to) {
+		if (!enforce) {
+			return;
+		}
+		Map<LocalDateTime, LessonDto> clashes = findSeriesClashes(teacherId, series, Recurrences.occurrences(series, from, to));
+		if (!clashes.isEmpty()) {
+			Map.Entry<LocalDateTime, LessonDto> first = clashes.entrySet().iterator().next();
+			LessonDto conflict = first.getValue();
+			throw new RuntimeException("Occurrence on " + first.getKey() + " overlaps with '" + conflict.getTitle() + "' ("
+					+ conflict.getStartTime() + " - " + conflict.getEndTime() + ")");
+		}
+	}
+
+	/**
+	 * The given occurrence starts of {@code series} that overlap another lesson or series of the
+	 * teacher, each mapped to the earliest thing it overlaps, in the order given. Stored lessons and the
+	 * other series are loaded once for the whole span, so a rule spanning months costs two queries, not
+	 * two per occurrence.
+	 */
+	public Map<LocalDateTime, LessonDto> findSeriesClashes(int teacherId, LessonSeries series, List<LocalDateTime> starts) {
+		Map<LocalDateTime, LessonDto> clashes = new LinkedHashMap<>();
+		if (starts.isEmpty()) {
+			return clashes;
+		}
+		Duration duration = Duration.between(series.getStartTime(), series.getEndTime());
+		LocalDateTime spanEnd = starts.get(starts.size() - 1).plus(duration);
+		LessonIntervalIndex index = new LessonIntervalIndex();
+		lessonRepository.findDtosOverlapping(teacherId, starts.get(0), spanEnd).forEach(index::put);
+		List<LessonSeries> others = lessonSeriesRepository.findActiveForTeacher(teacherId,
+				starts.get(0).toLocalDate().minusDays(1), spanEnd);
+		for (LocalDateTime start : starts) {
+			LocalDateTime end = start.plus(duration);
+			List<LessonDto> conflicts = new ArrayList<>(index.overlapping(start, end, null));
+			conflicts.addAll(seriesOccurrences(others, start, end, conflicts));
+			conflicts.stream()
+					.filter(conflict -> conflict.getSeriesId() == null || conflict.getSeriesId() != series.getSeriesId())
+					.min(Comparator.comparing(LessonDto::getStartTime))
+					.ifPresent(conflict -> clashes.put(start, conflict));
+		}
+		return clashes;
+	}
+
+	/**
+	 * Gaps of at least {@code minMinutes} between the teacher's lessons inside the daily
+	 * [dayStart, dayEnd) window of each day of the week starting on {@code weekOf}'s Monday.
+	 */
+	public List<TimeSlotDto> findFreeSlots(int teacherId, LocalDate weekOf, LocalTime dayStart, LocalTime dayEnd, int minMinutes) {
+		List<TimeSlotDto> slots = new ArrayList<>();
+		Duration minimum = Duration.ofMinutes(Math.max(1, minMinutes));
+		LocalDate monday = LessonWeekCache.weekStart(weekOf.atStartOfDay());
+		for (int day = 0; day < 7; day++) {
+			LocalDateTime windowStart = monday.plusDays(day).atTime(dayStart);
+			LocalDateTime windowEnd = monday.plusDays(day).atTime(dayEnd);
+			LocalDateTime cursor = windowStart;
+			for (LessonDto busy : findConflicts(teacherId, windowStart, windowEnd, null)) {
+				if (Duration.between(cursor, busy.getStartTime()).compareTo(minimum) >= 0) {
+					slots.add(new TimeSlotDto(cursor, busy.getStartTime()));
+				}
+				if (busy.getEndTime().isAfter(cursor)) {
+					cursor = busy.getEndTime();
+				}
+			}
+			if (Duration.between(cursor, windowEnd).compareTo(minimum) >= 0) {
+				slots.add(new TimeSlotDto(cursor, windowEnd));
+			}
+		}
+		return slots;
+	}
+
+	public void onSaved(int teacherId, LessonDto lesson) {
+		LessonIntervalIndex index = indexes.getIfPresent(teacherId);
+		if (index != null) {
+			index.put(lesson);
+		}
+	}
+
+	public void onDeleted(int teacherId, int lessonId) {
+		LessonIntervalIndex index = indexes.getIfPresent(teacherId);
+		if (index != null) {
+			index.remove(lessonId);
+		}
+	}
+
+	public void invalidateTeacher(int teacherId) {
+		indexes.invalidate(teacherId);
+	}
+
+	private LessonIntervalIndex index(int teacherId) {
+		return indexes.get(teacherId, id -> {
+			LessonIntervalIndex index = new LessonIntervalIndex();
+			lessonRepository.findAllDtosByTeacher(id).forEach(index::put);
+			return index;
+		});
+	}
+
+	private static Set<Integer> ids(List<LessonDto> lessons) {
+		Set<Integer> ids = new HashSet<>();
+		lessons.forEach(lesson -> ids.add(lesson.getLessonId()));
+		return ids;
+	}
+
+	private List<LessonDto> seriesOccurrences(List<LessonSeries> active, LocalDateTime start, LocalDateTime end, List<LessonDto> stored) {
+		Set<String> storedKeys = new HashSet<>();
+		for (LessonDto lesson : stored) {
+			if (lesson.getSeriesId() != null) {
+				storedKeys.add(lesson.getSeriesId() + "@" + lesson.getOriginalStart());
+			}
+		}
+		List<LessonDto> occurrences = new ArrayList<>();
+		for (LessonSeries series : active) {
+			Duration duration = Duration.between(series.getStartTime(), series.getEndTime());
+			for (LocalDateTime occurrence : Recurrences.occurrences(series, start.minus(duration), end)) {
+				if (occurrence.plus(duration).isAfter(start) && !storedKeys.contains(series.getSeriesId() + "@" + occurrence)) {
+					occurrences.add(new LessonDto(0, series.getTitle(), series.getLessonAbout(), occurrence,
+							occurrence.plus(duration), series.getSeriesId(), occurrence));
+				}
+			}
+		}
+		return occurrences;
+	}
+}
@@ -0,0 +1,240 @@
+package com.vipertips.timetable.service;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.vipertips.timetable.dto.LessonDto;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Server-sent timetable changes per teacher. Open streams are async servlet responses, so an idle
+ * client holds a socket but no thread. Each teacher keeps the last few events so a client that
+ * reconnects with {@code Last-Event-ID} gets what it missed; if that is no longer possible it is sent
+ * {@code resync} and should re-fetch. Events are only buffered for teachers with a stream open now or
+ * within the last {@code lesson.stream.retention-minutes}; older idle channels are dropped.
+ */
+@Service
+public class LessonEventStream {
+	private static final Logger logger = LoggerFactory.getLogger(LessonEventStream.class);
+
+	@Autowired
+	private MeterRegistry meterRegistry;
+
+	@Value("${lesson.stream.timeout-minutes:30}")
+	private long timeoutMinutes;
+
+	@Value("${lesson.stream.heartbeat-seconds:20}")
+	private long heartbeatSeconds;
+
+	@Value("${lesson.stream.replay-size:100}")
+	private int replaySize;
+
+	@Value("${lesson.stream.max-streams-per-teacher:5}")
+	private int maxStreamsPerTeacher;
+
+	@Value("${lesson.stream.retention-minutes:5}")
+	private long retentionMinutes;
+
+	// event ids are "<epoch>:<sequence>", ids from before a restart cannot be resumed
+	private final String epoch = Long.toString(ThreadLocalRandom.current().nextLong() & Long.MAX_VALUE, 36);
+	private final AtomicLong sequence = new AtomicLong();
+	private final Map<Integer, Channel> channels = new ConcurrentHashMap<>();
+
+	// one thread sends everything, which keeps events in order and slow clients off the request threads
+	private ScheduledExecutorService sender;
+
+	public record StreamEvent(Integer lessonId, LessonDto lesson) {
+	}
+
+	private record Entry(long sequence, String name, StreamEvent data) {
+	}
+
+	@PostConstruct
+	void start() {
+		sender = Executors.newSingleThreadScheduledExecutor(
+				Thread.ofPlatform().name("lesson-stream").daemon(true).factory());
+		sender.scheduleAtFixedRate(this::heartbeat, heartbeatSeconds, heartbeatSeconds, TimeUnit.SECONDS);
+		Gauge.builder("lesson.stream.connections", channels,
+				all -> all.values().stream().mapToInt(Channel::size).sum())
+				.description("Open timetable event streams")
+				.register(meterRegistry);
+	}
+
+	@PreDestroy
+	void stop() {
+		sender.shutdownNow();
+		channels.values().forEach(Channel::completeAll);
+	}
+
+	public SseEmitter subscribe(int teacherId, String lastEventId) {
+		SseEmitter emitter = new SseEmitter(TimeUnit.MINUTES.toMillis(timeoutMinutes));
+		// touched inside compute, so the reaper cannot drop the channel before the emitter is added
+		Channel channel = channels.compute(teacherId, (id, existing) -> {
+			Channel opened = existing != null ? existing : new Channel();
+			opened.touch();
+			return opened;
+		});
+		emitter.onCompletion(() -> channel.remove(emitter));
+		emitter.onTimeout(() -> channel.remove(emitter));
+		emitter.onError(e -> channel.remove(emitter));
+		try {
+			channel.open(emitter, lastEventId);
+		} catch (IOException e) {
+			emitter.completeWithError(e);
+		}
+		return emitter;
+	}
+
+	@TransactionalEventListener(fallbackExecution = true)
+	public void onChange(TimetableChangeEvent event) {
+		Entry entry = new Entry(sequence.incrementAndGet(), event.type().eventName(),
+				new StreamEvent(event.lessonId(), event.lesson()));
+		Channel channel = channels.get(event.teacherId());
+		if (channel == null) {
+			// nobody is listening or about to resume, a new stream starts from the current state anyway
+			return;
+		}
+		List<SseEmitter> targets = channel.append(entry);
+		if (!targets.isEmpty()) {
+			sender.execute(() -> targets.forEach(emitter -> send(channel, emitter, entry)));
+		}
+	}
+
+	private void heartbeat() {
+		channels.values().forEach(channel -> channel.emitters().forEach(emitter -> {
+			try {
+				emitter.send(SseEmitter.event().comment("keepalive"));
+			} catch (IOException | IllegalStateException e) {
+				channel.remove(emitter);
+			}
+		}));
+		long idleBefore = System.nanoTime() - TimeUnit.MINUTES.toNanos(retentionMinutes);
+		channels.keySet().forEach(teacherId -> channels.computeIfPresent(teacherId,
+				(id, channel) -> channel.idleSince(idleBefore) ? null : channel));
+	}
+
+	private void send(Channel channel, SseEmitter emitter, Entry entry) {
+		try {
+			emitter.send(toEvent(entry));
+		} catch (IOException | IllegalStateException e) {
+			logger.debug("Dropping timetable stream: {}", e.getMessage());
+			channel.remove(emitter);
+		}
+	}
+
+	private SseEmitter.SseEventBuilder toEvent(Entry entry) {
+		return SseEmitter.event()
+				.id(epoch + ":" + entry.sequence())
+				.name(entry.name())
+				.data(entry.data(), MediaType.APPLICATION_JSON);
+	}
+
+	/**
+	 * A teacher's open streams and recent events. Appending and opening share the lock, so a
+	 * reconnecting client gets every event exactly once: either replayed or sent live.
+	 */
+	private final class Channel {
+		private final List<SseEmitter> emitters = new ArrayList<>();
+		private final Deque<Entry> recent = new ArrayDeque<>();
+		// events before the channel existed were not buffered, so resuming from before then means resync
+		private long evictedUpTo = sequence.get();
+		private long lastActive = System.nanoTime();
+
+		synchronized void touch() {
+			lastActive = System.nanoTime();
+		}
+
+		// no open stream, and the last one closed before the given time
+		synchronized boolean idleSince(long time) {
+			return emitters.isEmpty() && lastActive - time < 0;
+		}
+
+		synchronized void open(SseEmitter emitter, String lastEventId) throws IOException {
+			if (emitters.size() >= maxStreamsPerTeacher) {
+				// a teacher with too many tabs loses the oldest one rather than the newest
+				emitters.remove(0).complete();
+			}
+			emitters.add(emitter);
+			// sent before the handler returns, so these are buffered until the response starts
+			Long resumeAfter = resumePoint(lastEventId);
+			if (lastEventId == null) {
+				emitter.send(SseEmitter.event().comment("connected"));
+			} else if (resumeAfter == null) {
+				emitter.send(SseEmitter.event().name("resync").data(""));
+			} else {
+				for (Entry entry : recent) {
+					if (entry.sequence() > resumeAfter) {
+						emitter.send(toEvent(entry));
+					}
+				}
+			}
+		}
+
+		synchronized List<SseEmitter> append(Entry entry) {
+			recent.addLast(entry);
+			while (recent.size() > replaySize) {
+				evictedUpTo = recent.removeFirst().sequence();
+			}
+			return List.copyOf(emitters);
+		}
+
+		synchronized List<SseEmitter> emitters() {
+			return List.copyOf(emitters);
+		}
+
+		synchronized void remove(SseEmitter emitter) {
+			if (emitters.remove(emitter)) {
+				lastActive = System.nanoTime();
+			}
+		}
+
+		synchronized int size() {
+			return emitters.size();
+		}
+
+		synchronized void completeAll() {
+			emitters.forEach(SseEmitter::complete);
+			emitters.clear();
+		}
+
+		// null when the events after lastEventId are no longer all in the buffer
+		private Long resumePoint(String lastEventId) {
+			if (lastEventId == null) {
+				return null;
+			}
+			int colon = lastEventId.indexOf(':');
+			if (colon < 0 || !epoch.equals(lastEventId.substring(0, colon))) {
+				return null;
+			}
+			try {
+				long last = Long.parseLong(lastEventId.substring(colon + 1));
+				return last < evictedUpTo ? null : last;
+			} catch (NumberFormatException e) {
+				return null;
+			}
+		}
+	}
+}
@@ -0,0 +1,73 @@
+package com.vipertips.timetable.service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import com.vipertips.timetable.dto.LessonDto;
+
+/**
+ * One teacher's lessons ordered by start time. A lesson can only overlap [start, end) if it starts
+ * before {@code end} and no earlier than {@code start} minus the longest lesson held, so an overlap
+ * query is an O(log n) descent followed by a scan of that bounded range only. Durations are counted
+ * in a sorted multiset, so the bound shrinks again when the longest lesson is moved or removed.
+ */
+final class LessonIntervalIndex {
+
+	private record Key(LocalDateTime start, int lessonId) implements Comparable<Key> {
+		@Override
+		public int compareTo(Key other) {
+			int byStart = start.compareTo(other.start);
+			return byStart != 0 ? byStart : Integer.compare(lessonId, other.lessonId);
+		}
+	}
+
+	private final TreeMap<Key, LessonDto> byStart = new TreeMap<>();
+	private final Map<Integer, Key> keys = new HashMap<>();
+	private final TreeMap<Duration, Integer> durations = new TreeMap<>();
+
+	synchronized void put(LessonDto lesson) {
+		remove(lesson.getLessonId());
+		if (lesson.getStartTime() == null || lesson.getEndTime() == null) {
+			return;
+		}
+		Key key = new Key(lesson.getStartTime(), lesson.getLessonId());
+		byStart.put(key, lesson);
+		keys.put(lesson.getLessonId(), key);
+		durations.merge(duration(lesson), 1, Integer::sum);
+	}
+
+	synchronized void remove(int lessonId) {
+		Key key = keys.remove(lessonId);
+		if (key != null) {
+			durations.computeIfPresent(duration(byStart.remove(key)), (duration, count) -> count > 1 ? count - 1 : null);
+		}
+	}
+
+	synchronized Duration longest() {
+		return durations.isEmpty() ? Duration.ZERO : durations.lastKey();
+	}
+
+	/**
+	 * Lessons overlapping [start, end), ordered by start time, optionally ignoring one lesson.
+	 */
+	synchronized List<LessonDto> overlapping(LocalDateTime start, LocalDateTime end, Integer excludeLessonId) {
+		List<LessonDto> result = new ArrayList<>();
+		Key from = new Key(start.minus(longest()), Integer.MIN_VALUE);
+		Key to = new Key(end, Integer.MIN_VALUE);
+		for (LessonDto lesson : byStart.subMap(from, true, to, false).values()) {
+			if (lesson.getEndTime().isAfter(start) && (excludeLessonId == null || lesson.getLessonId() != excludeLessonId)) {
+				result.add(lesson);
+			}
+		}
+		return result;
+	}
+
+	private static Duration duration(LessonDto lesson) {
+		return Duration.between(lesson.getStartTime(), lesson.getEndTime());
+	}
+}
@@ -0,0 +1,372 @@
+package com.vipertips.timetable.service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.Lock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.vipertips.timetable.dto.LessonDto;
+import com.vipertips.timetable.dto.LessonSeriesDto;
+import com.vipertips.timetable.model.Lesson;
+import com.vipertips.timetable.model.Lesson.Status;
+import com.vipertips.timetable.model.LessonSeries;
+import com.vipertips.timetable.model.LessonSeries.Frequency;
+import com.vipertips.timetable.model.User;
+import com.vipertips.timetable.repository.LessonRepository;
+import com.vipertips.timetable.repository.LessonSeriesRepository;
+import com.vipertips.timetable.repository.UserRepository;
+
+/**
+ * Recurring lessons. A series is one row; its occurrences are only stored as {@link Lesson} rows
+ * once they enter the reminder horizon (or are edited individually), so reminders, claiming and
+ * per-occurrence edits keep working on plain lessons.
+ */
+@Service
+public class LessonSeriesService {
+	private static final Logger logger = LoggerFactory.getLogger(LessonSeriesService.class);
+
+	@Autowired
+	private LessonSeriesRepository lessonSeriesRepository;
+
+	@Autowired
+	private LessonRepository lessonRepository;
+
+	@Autowired
+	private UserRepository userRepository;
+
+	@Autowired
+	private ReminderEngine reminderEngine;
+
+	@Autowired
+	private LessonWeekCache lessonWeekCache;
+
+	@Autowired
+	private ResourceVersions resourceVersions;
+
+	@Autowired
+	private ApplicationEventPublisher eventPublisher;
+
+	@Autowired
+	private LessonConflictService lessonConflictService;
+
+	@Autowired
+	private TransactionTemplate transactionTemplate;
+
+	@Value("${reminder.lead-minutes:30}")
+	private int leadMinutes;
+
+	@Value("${reminder.horizon-hours:24}")
+	private int horizonHours;
+
+	@Value("${lesson.series.booking-window-weeks:104}")
+	private int bookingWindowWeeks;
+
+	public LessonSeriesDto createSeries(LessonSeriesDto dto, int teacherId) {
+		Lock lock = lessonConflictService.lockFor(teacherId);
+		lock.lock();
+		try {
+			LessonSeries saved = transactionTemplate.execute(status -> {
+				User user = userRepository.findById(teacherId)
+						.orElseThrow(() -> new RuntimeException("Teacher not found"));
+
+				LessonSeries series = LessonSeries.builder()
+						.title(dto.getTitle())
+						.lessonAbout(dto.getLessonAbout())
+						.startTime(dto.getStartTime())
+						.endTime(dto.getEndTime())
+						.frequency(dto.getFrequency() != null ? dto.getFrequency() : Frequency.WEEKLY)
+						.intervalCount(dto.getInterval() != null ? dto.getInterval() : 1)
+						.byDays(Recurrences.byDays(dto.getByDays()))
+						.untilDate(dto.getUntil())
+						.occurrenceCount(dto.getCount())
+						.user(user)
+						.build();
+				validate(series);
+				lessonConflictService.checkSeriesFree(teacherId, series, LocalDateTime.now(), bookingWindowEnd());
+				return lessonSeriesRepository.save(series);
+			});
+			seriesChanged(saved, teacherId);
+			return mapToDto(saved);
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Edits the whole series. Stored future occurrences that have not been reminded yet are dropped
+	 * and regenerated from the new rule, like "edit all events" in a calendar.
+	 */
+	public LessonSeriesDto updateSeries(int seriesId, LessonSeriesDto dto, int teacherId) {
+		Lock lock = lessonConflictService.lockFor(teacherId);
+		lock.lock();
+		try {
+			LessonSeries updated = transactionTemplate.execute(status -> {
+				LessonSeries series = getOwnedSeries(seriesId, teacherId);
+
+				if (dto.getTitle() != null) {
+					series.setTitle(dto.getTitle());
+				}
+				if (dto.getLessonAbout() != null) {
+					series.setLessonAbout(dto.getLessonAbout());
+				}
+				if (dto.getStartTime() != null) {
+					series.setStartTime(dto.getStartTime());
+				}
+				if (dto.getEndTime() != null) {
+					series.setEndTime(dto.getEndTime());
+				}
+				if (dto.getFrequency() != null) {
+					series.setFrequency(dto.getFrequency());
+				}
+				if (dto.getInterval() != null) {
+					series.setIntervalCount(dto.getInterval());
+				}
+				if (dto.getByDays() != null) {
+					series.setByDays(Recurrences.byDays(dto.getByDays()));
+				}
+				if (dto.getUntil() != null) {
+					series.setUntilDate(dto.getUntil());
+				}
+				if (dto.getCount() != null) {
+					series.setOccurrenceCount(dto.getCount());
+				}
+				validate(series);
+				lessonConflictService.checkSeriesFree(teacherId, series, LocalDateTime.now(), bookingWindowEnd());
+
+				dropFutureOccurrences(series);
+				return lessonSeriesRepository.save(series);
+			});
+			seriesChanged(updated, teacherId);
+			return mapToDto(updated);
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Deletes the series and its upcoming occurrences; occurrences already reminded stay as
+	 * standalone lessons.
+	 */
+	public void deleteSeries(int seriesId, int teacherId) {
+		Lock lock = lessonConflictService.lockFor(teacherId);
+		lock.lock();
+		try {
+			transactionTemplate.executeWithoutResult(status -> {
+				LessonSeries series = getOwnedSeries(seriesId, teacherId);
+				dropFutureOccurrences(series);
+				lessonRepository.detachFromSeries(series);
+				lessonSeriesRepository.deleteById(seriesId);
+			});
+			timetableChanged(teacherId);
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Removes a single occurrence from the series, including its stored lesson if any.
+	 */
+	public void cancelOccurrence(int seriesId, LocalDateTime originalStart, int teacherId) {
+		Lock lock = lessonConflictService.lockFor(teacherId);
+		lock.lock();
+		try {
+			transactionTemplate.executeWithoutResult(status -> {
+				LessonSeries series = getOwnedSeries(seriesId, teacherId);
+				series.getCancelledStarts().add(originalStart);
+				lessonSeriesRepository.save(series);
+				lessonRepository.findBySeriesAndOriginalStart(series, originalStart).ifPresent(lesson -> {
+					lessonRepository.delete(lesson);
+					afterCommit(() -> reminderEngine.cancel(lesson.getLessonId()));
+				});
+			});
+			timetableChanged(teacherId);
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	@Transactional(readOnly = true)
+	public List<LessonSeriesDto> getSeriesForTeacher(int teacherId) {
+		return lessonSeriesRepository.findByTeacher(teacherId).stream().map(this::mapToDto).toList();
+	}
+
+	// after commit: occurrences are stored one insert per transaction, see materialize
+	private void seriesChanged(LessonSeries series, int teacherId) {
+		materialize(series, LocalDateTime.now(), horizonEnd());
+		timetableChanged(teacherId);
+	}
+
+	// after commit, so a rolled back write neither drops caches nor tells clients about it
+	private void timetableChanged(int teacherId) {
+		lessonWeekCache.invalidateTeacher(teacherId);
+		resourceVersions.bump(ResourceVersions.Kind.LESSONS, teacherId);
+		eventPublisher.publishEvent(TimetableChangeEvent.changed(teacherId));
+		lessonConflictService.invalidateTeacher(teacherId);
+	}
+
+	/**
+	 * Stores the occurrences entering the reminder horizon as lessons so the reminder engine can
+	 * claim and send them like any other lesson. Runs on every node; the unique
+	 * (series_id, original_start) constraint keeps the rows single.
+	 */
+	@EventListener(ApplicationReadyEvent.class)
+	@Scheduled(fixedRateString = "${reminder.reconcile-interval-ms:3600000}",
+			initialDelayString = "${reminder.reconcile-interval-ms:3600000}")
+	public void materializeUpcoming() {
+		LocalDateTime now = LocalDateTime.now();
+		LocalDateTime to = horizonEnd();
+		int stored = 0;
+		for (LessonSeries series : lessonSeriesRepository.findActive(now.toLocalDate(), to)) {
+			Lock lock = lessonConflictService.lockFor(series.getUser().getUserId());
+			lock.lock();
+			int added;
+			try {
+				added = materialize(series, now, to);
+			} finally {
+				lock.unlock();
+			}
+			if (added > 0) {
+				timetableChanged(series.getUser().getUserId());
+			}
+			stored += added;
+		}
+		logger.info("Stored {} upcoming series occurrence(s)", stored);
+	}
+
+	/**
+	 * Runs outside a transaction, so every insert commits on its own and an occurrence another node
+	 * stored first only fails its own insert. Inside a transaction the unique key clash would only
+	 * surface at commit and roll back everything else with it. Call it holding the teacher's lock.
+	 *
+	 * Occurrences are checked for double-booking once more before they are stored: those past the
+	 * booking window were never checked when the series was saved. A clashing occurrence is skipped
+	 * and logged, never stored.
+	 */
+	private int materialize(LessonSeries series, LocalDateTime from, LocalDateTime to) {
+		Set<LocalDateTime> stored = new HashSet<>(lessonRepository.findStoredOccurrences(series, from, to));
+		List<LocalDateTime> due = Recurrences.occurrences(series, from, to).stream()
+				.filter(start -> !stored.contains(start))
+				.toList();
+		Map<LocalDateTime, LessonDto> clashes = lessonConflictService.isEnforced()
+				? lessonConflictService.findSeriesClashes(series.getUser().getUserId(), series, due)
+				: Map.of();
+		Duration duration = Duration.between(series.getStartTime(), series.getEndTime());
+		List<Lesson> created = new ArrayList<>();
+		for (LocalDateTime start : due) {
+			LessonDto clash = clashes.get(start);
+			if (clash != null) {
+				logger.warn("Not storing occurrence {} of series {}, it overlaps '{}' ({} - {})", start,
+						series.getSeriesId(), clash.getTitle(), clash.getStartTime(), clash.getEndTime());
+				continue;
+			}
+			try {
+				created.add(lessonRepository.save(Lesson.builder()
+						.title(series.getTitle())
+						.lessonAbout(series.getLessonAbout())
+						.startTime(start)
+						.endTime(start.plus(duration))
+						.status(Status.PENDING)
+						.user(series.getUser())
+						.series(series)
+						.originalStart(start)
+						.build()));
+			} catch (DataIntegrityViolationException e) {
+				// stored concurrently by another node
+			}
+		}
+		afterCommit(() -> created.forEach(lesson -> reminderEngine.schedule(lesson.getLessonId(), lesson.getStartTime())));
+		return created.size();
+	}
+
+	// a reminder due right away must not be dispatched before its row is visible to the claim query
+	private void afterCommit(Runnable action) {
+		if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+			action.run();
+			return;
+		}
+		TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+			@Override
+			public void afterCommit() {
+				action.run();
+			}
+		});
+	}
+
+	private void dropFutureOccurrences(LessonSeries series) {
+		List<Lesson> upcoming = lessonRepository.findBySeriesStartingAfter(series, LocalDateTime.now(), Status.PENDING);
+		lessonRepository.deleteAllInBatch(upcoming);
+		afterCommit(() -> upcoming.forEach(lesson -> reminderEngine.cancel(lesson.getLessonId())));
+	}
+
+	private LessonSeries getOwnedSeries(int seriesId, int teacherId) {
+		LessonSeries series = lessonSeriesRepository.findWithCancelledStarts(seriesId)
+				.orElseThrow(() -> new RuntimeException("Series not found"));
+		if (series.getUser().getUserId() != teacherId) {
+			throw new RuntimeException("Series not found");
+		}
+		return series;
+	}
+
+	private void validate(LessonSeries series) {
+		if (series.getTitle() == null || series.getTitle().isBlank()) {
+			throw new RuntimeException("Title is required");
+		}
+		if (series.getStartTime() == null || series.getEndTime() == null
+				|| !series.getEndTime().isAfter(series.getStartTime())) {
+			throw new RuntimeException("A start time and a later end time are required");
+		}
+		if (series.getIntervalCount() < 1) {
+			throw new RuntimeException("Interval must be at least 1");
+		}
+		// a bounded series must fit the booking window, so the conflict check covers all of it
+		boolean bounded = series.getUntilDate() != null || series.getOccurrenceCount() != null;
+		if (bounded && !Recurrences.endsBefore(series, bookingWindowEnd())) {
+			throw new RuntimeException("A series with an end date or count must end within " + bookingWindowWeeks
+					+ " weeks; leave both empty for an open-ended series");
+		}
+	}
+
+	// how far ahead a series is checked for double-booking when it is saved
+	private LocalDateTime bookingWindowEnd() {
+		return LocalDateTime.now().plusWeeks(bookingWindowWeeks);
+	}
+
+	private LocalDateTime horizonEnd() {
+		return LocalDateTime.now().plusHours(horizonHours).plusMinutes(leadMinutes);
+	}
+
+	private LessonSeriesDto mapToDto(LessonSeries series) {
+		LessonSeriesDto dto = new LessonSeriesDto();
+		dto.setSeriesId(series.getSeriesId());
+		dto.setTitle(series.getTitle());
+		dto.setLessonAbout(series.getLessonAbout());
+		dto.setStartTime(series.getStartTime());
+		dto.setEndTime(series.getEndTime());
+		dto.setFrequency(series.getFrequency());
+		dto.setInterval(series.getIntervalCount());
+		dto.setByDays(List.copyOf(Recurrences.days(series)));
+		dto.setUntil(series.getUntilDate());
+		dto.setCount(series.getOccurrenceCount());
+		dto.setCancelledStarts(Set.copyOf(series.getCancelledStarts()));
+		return dto;
+	}
+}
@@ -1,19 +1,45 @@
 package com.vipertips.timetable.service;
 
+import java.nio.charset.StandardCharsets;
+import java.time.DateTimeException;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.Lock;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.*;
-import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import com.vipertips.timetable.dto.LessonBatchDto;
 import com.vipertips.timetable.dto.LessonDto;
+import com.vipertips.timetable.dto.LessonRow;
+import com.vipertips.timetable.dto.TimeSlotDto;
 import com.vipertips.timetable.model.Lesson;
 import com.vipertips.timetable.model.Lesson.Status;
 import com.vipertips.timetable.model.User;
 import com.vipertips.timetable.repository.LessonRepository;
 import com.vipertips.timetable.repository.UserRepository;
+import com.vipertips.timetable.response.CursorPage;
+import com.vipertips.timetable.response.LessonBatchResult;
+import com.vipertips.timetable.response.LessonPage;
+import com.vipertips.timetable.response.LessonBatchResult.Operation;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 
 @Service
 public class LessonService {
@@ -25,39 +51,392 @@ public class LessonService {
     private UserRepository userRepository;
 
     @Autowired
-    private EmailSender emailSender;
+    private ReminderEngine reminderEngine;
+
+    @Autowired
+    private LessonWeekCache lessonWeekCache;
+
+    @Autowired
+    private ResourceVersions resourceVersions;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private LessonSeriesService lessonSeriesService;
+
+    @Autowired
+    private LessonConflictService lessonConflictService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${lesson.range.max-weeks:6}")
+    private int maxRangeWeeks;
+
+    @Value("${lesson.batch.max-items:1000}")
+    private int maxBatchItems;
 
     public LessonDto createLesson(LessonDto lessonDto, int teacherId) {
-        User user = userRepository.findById(teacherId)
-                .orElseThrow(() -> new RuntimeException("Teacher not found"));
-        System.out.println("DTO description: " + lessonDto.getLessonAbout());
-
-        Lesson lesson = Lesson.builder()
-                .title(lessonDto.getTitle())
-                .startTime(lessonDto.getStartTime())
-                .endTime(lessonDto.getEndTime())
-                .status(Status.PENDING)
-                .lessonAbout(lessonDto.getLessonAbout())
-                .user(user)
+        return timed("create", () -> {
+            User user = userRepository.findById(teacherId)
+                    .orElseThrow(() -> new RuntimeException("Teacher not found"));
+
+            Lock lock = lessonConflictService.lockFor(teacherId);
+            lock.lock();
+            try {
+                lessonConflictService.checkFree(teacherId, lessonDto.getStartTime(), lessonDto.getEndTime(), null);
+
+                Lesson lesson = Lesson.builder()
+                        .title(lessonDto.getTitle())
+                        .startTime(lessonDto.getStartTime())
+                        .endTime(lessonDto.getEndTime())
+                        .status(Status.PENDING)
+                        .lessonAbout(lessonDto.getLessonAbout())
+                        .user(user)
+                        .build();
+
+                Lesson savedLesson = lessonRepository.save(lesson);
+                LessonDto saved = mapToDto(savedLesson);
+                lessonConflictService.onSaved(teacherId, saved);
+                reminderEngine.schedule(savedLesson.getLessonId(), savedLesson.getStartTime());
+                lessonWeekCache.invalidateTeacher(teacherId);
+                resourceVersions.bump(ResourceVersions.Kind.LESSONS, teacherId);
+                eventPublisher.publishEvent(TimetableChangeEvent.created(teacherId, saved));
+                return saved;
+            } finally {
+                lock.unlock();
+            }
+        });
+    }
+
+    /**
+     * Applies a whole import in one transaction: the teacher is resolved once and inserts go out as
+     * JDBC batches. Invalid, foreign or overlapping items are reported per item instead of failing the
+     * batch; items are checked against the stored timetable and against each other.
+     */
+    public List<LessonBatchResult> applyBatch(LessonBatchDto batch, int teacherId) {
+        return timed("batch", () -> {
+            int items = batch.getCreate().size() + batch.getUpdate().size() + batch.getDelete().size();
+            if (items > maxBatchItems) {
+                throw new RuntimeException("Batch too large, at most " + maxBatchItems + " items are allowed");
+            }
+
+            List<LessonBatchResult> results = new ArrayList<>(items);
+            List<Lesson> scheduled = new ArrayList<>();
+            List<Integer> deletedIds = new ArrayList<>();
+            BatchConflicts conflicts = new BatchConflicts(teacherId, batch);
+            Lock lock = lessonConflictService.lockFor(teacherId);
+            lock.lock();
+            try {
+                // rebuilt from the database on first use, so items are checked against every stored lesson
+                lessonConflictService.invalidateTeacher(teacherId);
+                transactionTemplate.executeWithoutResult(status -> {
+                    User user = userRepository.findById(teacherId)
+                            .orElseThrow(() -> new RuntimeException("Teacher not found"));
+                    scheduled.addAll(updateAll(batch.getUpdate(), teacherId, results, conflicts));
+                    scheduled.addAll(createAll(batch.getCreate(), user, results, conflicts));
+                    deletedIds.addAll(deleteAll(batch.getDelete(), teacherId, results));
+                });
+                lessonConflictService.invalidateTeacher(teacherId);
+            } finally {
+                lock.unlock();
+            }
+
+            // only after commit, so a reminder firing right away sees the rows
+            scheduled.forEach(lesson -> reminderEngine.schedule(lesson.getLessonId(), lesson.getStartTime()));
+            deletedIds.forEach(reminderEngine::cancel);
+            lessonWeekCache.invalidateTeacher(teacherId);
+            resourceVersions.bump(ResourceVersions.Kind.LESSONS, teacherId);
+            eventPublisher.publishEvent(TimetableChangeEvent.changed(teacherId));
+            return results;
+        });
+    }
+
+    private List<Lesson> createAll(List<LessonDto> dtos, User user, List<LessonBatchResult> results, BatchConflicts conflicts) {
+        List<Lesson> lessons = new ArrayList<>(dtos.size());
+        List<Integer> indexes = new ArrayList<>(dtos.size());
+        for (int i = 0; i < dtos.size(); i++) {
+            LessonDto dto = dtos.get(i);
+            String error = validate(dto.getTitle(), dto.getStartTime(), dto.getEndTime());
+            if (error == null) {
+                error = conflicts.claim(-(i + 1), dto.getTitle(), dto.getStartTime(), dto.getEndTime());
+            }
+            if (error != null) {
+                results.add(failure(Operation.CREATE, i, null, error));
+                continue;
+            }
+            lessons.add(Lesson.builder()
+                    .title(dto.getTitle())
+                    .startTime(dto.getStartTime())
+                    .endTime(dto.getEndTime())
+                    .status(Status.PENDING)
+                    .lessonAbout(dto.getLessonAbout())
+                    .user(user)
+                    .build());
+            indexes.add(i);
+        }
+
+        List<Lesson> saved = lessonRepository.saveAll(lessons);
+        for (int i = 0; i < saved.size(); i++) {
+            results.add(success(Operation.CREATE, indexes.get(i), saved.get(i)));
+        }
+        return saved;
+    }
+
+    private List<Lesson> updateAll(List<LessonDto> dtos, int teacherId, List<LessonBatchResult> results, BatchConflicts conflicts) {
+        Map<Integer, Lesson> existing = lessonRepository.findAllById(dtos.stream().map(LessonDto::getLessonId).toList())
+                .stream().collect(Collectors.toMap(Lesson::getLessonId, Function.identity()));
+        List<Lesson> updated = new ArrayList<>(dtos.size());
+        for (int i = 0; i < dtos.size(); i++) {
+            LessonDto dto = dtos.get(i);
+            Lesson lesson = existing.get(dto.getLessonId());
+            if (lesson == null || lesson.getUser().getUserId() != teacherId) {
+                results.add(failure(Operation.UPDATE, i, dto.getLessonId(), "Lesson not found"));
+                continue;
+            }
+            LocalDateTime startTime = dto.getStartTime() != null ? dto.getStartTime() : lesson.getStartTime();
+            LocalDateTime endTime = dto.getEndTime() != null ? dto.getEndTime() : lesson.getEndTime();
+            String error = validate(dto.getTitle() != null ? dto.getTitle() : lesson.getTitle(), startTime, endTime);
+            if (error == null) {
+                error = conflicts.claim(lesson.getLessonId(), dto.getTitle() != null ? dto.getTitle() : lesson.getTitle(),
+                        startTime, endTime);
+            }
+            if (error != null) {
+                // the lesson stays where it is, so later items must still see it there
+                conflicts.keep(lesson);
+                results.add(failure(Operation.UPDATE, i, dto.getLessonId(), error));
+                continue;
+            }
+            applyChanges(lesson, dto);
+            updated.add(lesson);
+            results.add(success(Operation.UPDATE, i, lesson));
+        }
+        lessonRepository.saveAll(updated);
+        return updated;
+    }
+
+    private List<Integer> deleteAll(List<Integer> lessonIds, int teacherId, List<LessonBatchResult> results) {
+        Map<Integer, Lesson> existing = lessonRepository.findAllById(lessonIds)
+                .stream().collect(Collectors.toMap(Lesson::getLessonId, Function.identity()));
+        List<Integer> deleted = new ArrayList<>(lessonIds.size());
+        for (int i = 0; i < lessonIds.size(); i++) {
+            Lesson lesson = existing.get(lessonIds.get(i));
+            if (lesson == null || lesson.getUser().getUserId() != teacherId) {
+                results.add(failure(Operation.DELETE, i, lessonIds.get(i), "Lesson not found"));
+                continue;
+            }
+            if (lesson.getSeries() != null) {
+                lesson.getSeries().getCancelledStarts().add(lesson.getOriginalStart());
+            }
+            deleted.add(lesson.getLessonId());
+            results.add(LessonBatchResult.builder()
+                    .operation(Operation.DELETE)
+                    .index(i)
+                    .lessonId(lesson.getLessonId())
+                    .success(true)
+                    .message("Lesson deleted successfully")
+                    .build());
+        }
+        lessonRepository.deleteAllByIdInBatch(deleted);
+        return deleted;
+    }
+
+    /**
+     * Conflict bookkeeping for one batch. Lessons the batch moves or deletes are ignored in the stored
+     * timetable; their new positions and the batch's new lessons live in a local index instead.
+     */
+    private class BatchConflicts {
+        private final int teacherId;
+        private final Set<Integer> touched = new HashSet<>();
+        private final LessonIntervalIndex pending = new LessonIntervalIndex();
+
+        BatchConflicts(int teacherId, LessonBatchDto batch) {
+            this.teacherId = teacherId;
+            batch.getUpdate().forEach(dto -> touched.add(dto.getLessonId()));
+            touched.addAll(batch.getDelete());
+        }
+
+        String claim(int lessonId, String title, LocalDateTime startTime, LocalDateTime endTime) {
+            if (!lessonConflictService.isEnforced()) {
+                return null;
+            }
+            List<LessonDto> clashes = new ArrayList<>(pending.overlapping(startTime, endTime, lessonId));
+            for (LessonDto stored : lessonConflictService.findConflicts(teacherId, startTime, endTime, lessonId)) {
+                if (!touched.contains(stored.getLessonId())) {
+                    clashes.add(stored);
+                }
+            }
+            if (!clashes.isEmpty()) {
+                LessonDto first = clashes.get(0);
+                return "Lesson overlaps with '" + first.getTitle() + "' (" + first.getStartTime() + " - "
+                        + first.getEndTime() + ")";
+            }
+            pending.put(new LessonDto(lessonId, title, null, startTime, endTime));
+            return null;
+        }
+
+        void keep(Lesson lesson) {
+            pending.put(mapToDto(lesson));
+        }
+    }
+
+    private String validate(String title, LocalDateTime startTime, LocalDateTime endTime) {
+        if (title == null || title.isBlank()) {
+            return "Title is required";
+        }
+        if (startTime == null || endTime == null) {
+            return "Start and end time are required";
+        }
+        if (!endTime.isAfter(startTime)) {
+            return "End time must be after start time";
+        }
+        return null;
+    }
+
+    private LessonBatchResult success(Operation operation, int index, Lesson lesson) {
+        return LessonBatchResult.builder()
+                .operation(operation)
+                .index(index)
+                .lessonId(lesson.getLessonId())
+                .success(true)
+                .lesson(mapToDto(lesson))
                 .build();
+    }
 
-        Lesson savedLesson = lessonRepository.save(lesson);
+    private LessonBatchResult failure(Operation operation, int index, Integer lessonId, String message) {
+        return LessonBatchResult.builder()
+                .operation(operation)
+                .index(index)
+                .lessonId(lessonId)
+                .success(false)
+                .message(message)
+                .build();
+    }
 
-        return mapToDto(savedLesson);
+    /**
+     * Newest first, as record rows in a {@link LessonPage} that streams itself to JSON. Like Spring
+     * Data's own paging, the count query is skipped when a partial page already tells the total.
+     */
+    @Transactional(readOnly = true)
+    public LessonPage getLessonsForTeacher(int teacherId, int page, int size) {
+        return timed("page", () -> {
+            List<LessonRow> rows = lessonRepository.findRowsByTeacher(teacherId, PageRequest.of(page, size));
+            long offset = (long) page * size;
+            boolean partial = rows.size() < size && (page == 0 || !rows.isEmpty());
+            long total = partial ? offset + rows.size() : lessonRepository.countByTeacher(teacherId);
+            return new LessonPage(rows, page, size, total);
+        });
     }
 
-    public Page<LessonDto> getLessonsForTeacher(int teacherId, int page, int size) {
-        Pageable pageable = PageRequest.of(page, size, Sort.by("startTime").descending());
-        Page<Lesson> lessons = lessonRepository.findByUser_UserId(teacherId, pageable);
+    @Transactional(readOnly = true)
+    public CursorPage<LessonRow> getLessonsForTeacherAfter(int teacherId, String cursor, int size) {
+        return timed("cursor", () -> {
+            // fetch one extra row to learn whether another slice follows
+            Pageable limit = PageRequest.of(0, Math.max(1, size) + 1);
+            List<LessonRow> rows;
+            if (cursor == null || cursor.isBlank()) {
+                rows = lessonRepository.findRowsByTeacherFirst(teacherId, limit);
+            } else {
+                CursorPosition position = decodeCursor(cursor);
+                rows = lessonRepository.findRowsByTeacherAfter(teacherId, position.startTime(), position.lessonId(), limit);
+            }
+
+            boolean hasNext = rows.size() > Math.max(1, size);
+            List<LessonRow> content = hasNext ? rows.subList(0, rows.size() - 1) : rows;
+            String nextCursor = hasNext ? encodeCursor(content.get(content.size() - 1)) : null;
+            return new CursorPage<>(content, nextCursor, hasNext);
+        });
+    }
+
+    public List<LessonDto> findConflicts(int teacherId, LocalDateTime start, LocalDateTime end, Integer excludeLessonId) {
+        return timed("conflicts", () -> {
+            if (!start.isBefore(end)) {
+                throw new RuntimeException("'start' must be before 'end'");
+            }
+            return lessonConflictService.findConflicts(teacherId, start, end, excludeLessonId);
+        });
+    }
+
+    public List<TimeSlotDto> findFreeSlots(int teacherId, LocalDate weekOf, LocalTime dayStart, LocalTime dayEnd, int minMinutes) {
+        return timed("free-slots", () -> {
+            if (!dayStart.isBefore(dayEnd)) {
+                throw new RuntimeException("'dayStart' must be before 'dayEnd'");
+            }
+            return lessonConflictService.findFreeSlots(teacherId, weekOf, dayStart, dayEnd, minMinutes);
+        });
+    }
+
+    public List<LessonDto> getLessonsForTeacherInRange(int teacherId, LocalDateTime from, LocalDateTime to) {
+        return timed("range", () -> {
+            if (!from.isBefore(to)) {
+                throw new RuntimeException("'from' must be before 'to'");
+            }
+            if (from.plusWeeks(maxRangeWeeks).isBefore(to)) {
+                throw new RuntimeException("Range too large, at most " + maxRangeWeeks + " weeks can be requested");
+            }
+            return lessonWeekCache.getRange(teacherId, from, to);
+        });
+    }
 
-        return lessons.map(this::mapToDto);
+    private String encodeCursor(LessonRow last) {
+        String position = last.startTime() + "|" + last.lessonId();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(position.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private record CursorPosition(LocalDateTime startTime, int lessonId) {
+    }
+
+    // every way a cursor can be garbled ends up as the same client error
+    private CursorPosition decodeCursor(String cursor) {
+        try {
+            String[] position = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split("\\|");
+            if (position.length != 2) {
+                throw new IllegalArgumentException();
+            }
+            return new CursorPosition(LocalDateTime.parse(position[0]), Integer.parseInt(position[1]));
+        } catch (IllegalArgumentException | DateTimeException e) {
+            throw new RuntimeException("Invalid cursor");
+        }
     }
 
     public LessonDto updateLesson(int lessonId, LessonDto lessonDto) {
-        Lesson lesson = lessonRepository.findById(lessonId)
-                .orElseThrow(() -> new RuntimeException("Lesson not found"));
+        return timed("update", () -> {
+            Lesson lesson = lessonRepository.findById(lessonId)
+                    .orElseThrow(() -> new RuntimeException("Lesson not found"));
 
+            int teacherId = lesson.getUser().getUserId();
+            Lock lock = lessonConflictService.lockFor(teacherId);
+            lock.lock();
+            try {
+                lessonConflictService.checkFree(teacherId,
+                        lessonDto.getStartTime() != null ? lessonDto.getStartTime() : lesson.getStartTime(),
+                        lessonDto.getEndTime() != null ? lessonDto.getEndTime() : lesson.getEndTime(),
+                        lesson.getLessonId());
+                applyChanges(lesson, lessonDto);
+
+                lessonRepository.save(lesson);
+                LessonDto saved = mapToDto(lesson);
+                lessonConflictService.onSaved(teacherId, saved);
+                reminderEngine.schedule(lesson.getLessonId(), lesson.getStartTime());
+                lessonWeekCache.invalidateTeacher(teacherId);
+                resourceVersions.bump(ResourceVersions.Kind.LESSONS, teacherId);
+                eventPublisher.publishEvent(TimetableChangeEvent.updated(teacherId, saved));
+                return saved;
+            } finally {
+                lock.unlock();
+            }
+        });
+    }
+
+
+    private void applyChanges(Lesson lesson, LessonDto lessonDto) {
         lesson.setStatus(Status.PENDING);
+        lesson.setClaimedBy(null);
+        lesson.setLeaseUntil(null);
 
         if (lessonDto.getTitle() != null) {
             lesson.setTitle(lessonDto.getTitle());
@@ -71,62 +450,69 @@ public class LessonService {
         if (lessonDto.getEndTime() != null) {
             lesson.setEndTime(lessonDto.getEndTime());
         }
-
-        lessonRepository.save(lesson);
-        return mapToDto(lesson);
     }
 
-
     public void deleteLesson(int lessonId) {
-        lessonRepository.deleteById(lessonId);
+        timed("delete", () -> {
+            lessonRepository.findById(lessonId).ifPresent(lesson -> {
+                if (lesson.getSeries() != null) {
+                    // record the exception too, otherwise the occurrence would be generated again
+                    lessonSeriesService.cancelOccurrence(lesson.getSeries().getSeriesId(), lesson.getOriginalStart(),
+                            lesson.getUser().getUserId());
+                } else {
+                    lessonRepository.delete(lesson);
+                }
+                lessonConflictService.onDeleted(lesson.getUser().getUserId(), lessonId);
+                lessonWeekCache.invalidateTeacher(lesson.getUser().getUserId());
+                resourceVersions.bump(ResourceVersions.Kind.LESSONS, lesson.getUser().getUserId());
+                eventPublisher.publishEvent(TimetableChangeEvent.deleted(lesson.getUser().getUserId(), lessonId));
+            });
+            reminderEngine.cancel(lessonId);
+        });
     }
     
+    @Transactional(readOnly = true)
     public LessonDto getLessonById(int lessonId) {
     	Lesson lesson = lessonRepository.findById(lessonId)
                 .orElseThrow(() -> new RuntimeException("Lesson not found"));
     	return mapToDto(lesson);
     }
 
-    private LessonDto mapToDto(Lesson lesson) {
+    private <T> T timed(String operation, Supplier<T> body) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "error";
+        try {
+            T result = body.get();
+            outcome = "success";
+            return result;
+        } finally {
+            sample.stop(Timer.builder("lesson.operations")
+                    .description("Lesson service calls by operation")
+                    .tag("operation", operation)
+                    .tag("outcome", outcome)
+                    .register(meterRegistry));
+        }
+    }
+
+    private void timed(String operation, Runnable body) {
+        timed(operation, () -> {
+            body.run();
+            return null;
+        });
+    }
+
+    LessonDto mapToDto(Lesson lesson) {
         LessonDto dto = new LessonDto();
         dto.setLessonId(lesson.getLessonId());
         dto.setTitle(lesson.getTitle());
         dto.setLessonAbout(lesson.getLessonAbout());
         dto.setStartTime(lesson.getStartTime());
         dto.setEndTime(lesson.getEndTime());
-        return dto;
-    }
-
-    @Scheduled(fixedRate = 60000) 
-    public void sendUpcomingLessonReminders() {
-        LocalDateTime now = LocalDateTime.now();
-        LocalDateTime tenMinsLater = now.plusMinutes(10);
-        LocalDateTime thirtyMinsLater = now.plusMinutes(30);
-
-        List<Lesson> upcomingLessons = lessonRepository
-                .findByStartTimeBetween(tenMinsLater, thirtyMinsLater);
-
-        for (Lesson lesson : upcomingLessons) {
-            System.out.println("---"+lesson.getStatus());
-            if (lesson.getStatus() == Lesson.Status.PENDING) {
-                try {
-                    emailSender.sendLessonReminderEmail(
-                            lesson.getUser().getEmail(),
-                            lesson.getUser().getFirstName(),
-                            lesson.getTitle(),
-                            lesson.getStartTime().toString(),
-                            30
-                    );
-                    System.out.println("Reminder sent for lesson: " + lesson.getTitle());
-
-                    // Update the status to SENT so we don't spam
-                    lesson.setStatus(Lesson.Status.SENT);
-                    lessonRepository.save(lesson);
-                } catch (Exception e) {
-                    System.err.println("Error sending reminder: " + e.getMessage());
-                }
-            }
+        if (lesson.getSeries() != null) {
+            dto.setSeriesId(lesson.getSeries().getSeriesId());
+            dto.setOriginalStart(lesson.getOriginalStart());
         }
+        return dto;
     }
 
 }
@@ -0,0 +1,121 @@
+package com.vipertips.timetable.service;
+
+import java.time.DayOfWeek;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.vipertips.timetable.dto.LessonDto;
+import com.vipertips.timetable.model.LessonSeries;
+import com.vipertips.timetable.repository.LessonRepository;
+import com.vipertips.timetable.repository.LessonSeriesRepository;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Per-teacher, per-week (Monday based) cache of lessons backing the week/day timetable views.
+ * Recurring series are expanded into the week here, except for occurrences already stored as lessons.
+ * Entries are dropped for the whole teacher whenever one of their lessons or series is written.
+ */
+@Service
+public class LessonWeekCache {
+
+	@Autowired
+	private LessonRepository lessonRepository;
+
+	@Autowired
+	private LessonSeriesRepository lessonSeriesRepository;
+
+	@Autowired
+	private MeterRegistry meterRegistry;
+
+	@Value("${lesson.week-cache.max-size:20000}")
+	private long maxSize;
+
+	@Value("${lesson.week-cache.ttl-seconds:600}")
+	private long ttlSeconds;
+
+	private Cache<WeekKey, List<LessonDto>> weeks;
+
+	private record WeekKey(int teacherId, LocalDate weekStart) {
+	}
+
+	@PostConstruct
+	void init() {
+		weeks = Caffeine.newBuilder()
+				.maximumSize(maxSize)
+				.expireAfterWrite(ttlSeconds, TimeUnit.SECONDS)
+				.recordStats()
+				.build();
+		CaffeineCacheMetrics.monitor(meterRegistry, weeks, "lesson.weeks");
+	}
+
+	/**
+	 * Lessons of a teacher starting in [from, to), assembled from the cached weeks the range touches.
+	 */
+	public List<LessonDto> getRange(int teacherId, LocalDateTime from, LocalDateTime to) {
+		List<LessonDto> result = new ArrayList<>();
+		LocalDate week = weekStart(from);
+		while (week.atStartOfDay().isBefore(to)) {
+			for (LessonDto lesson : weeks.get(new WeekKey(teacherId, week), this::loadWeek)) {
+				if (!lesson.getStartTime().isBefore(from) && lesson.getStartTime().isBefore(to)) {
+					result.add(lesson);
+				}
+			}
+			week = week.plusWeeks(1);
+		}
+		return result;
+	}
+
+	public void invalidateTeacher(int teacherId) {
+		weeks.asMap().keySet().removeIf(key -> key.teacherId() == teacherId);
+	}
+
+	public static LocalDate weekStart(LocalDateTime time) {
+		return time.toLocalDate().with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+	}
+
+	private List<LessonDto> loadWeek(WeekKey key) {
+		LocalDateTime from = key.weekStart().atStartOfDay();
+		LocalDateTime to = from.plusWeeks(1);
+		List<LessonDto> lessons = new ArrayList<>(lessonRepository.findDtosByTeacherAndStartTimeRange(key.teacherId(), from, to));
+
+		Set<String> stored = new HashSet<>();
+		for (LessonDto lesson : lessons) {
+			if (lesson.getSeriesId() != null) {
+				stored.add(lesson.getSeriesId() + "@" + lesson.getOriginalStart());
+			}
+		}
+		boolean expanded = false;
+		for (LessonSeries series : lessonSeriesRepository.findActiveForTeacher(key.teacherId(), from.toLocalDate(), to)) {
+			Duration duration = Duration.between(series.getStartTime(), series.getEndTime());
+			for (LocalDateTime start : Recurrences.occurrences(series, from, to)) {
+				if (stored.contains(series.getSeriesId() + "@" + start)) {
+					continue;
+				}
+				lessons.add(new LessonDto(0, series.getTitle(), series.getLessonAbout(), start, start.plus(duration),
+						series.getSeriesId(), start));
+				expanded = true;
+			}
+		}
+		if (expanded) {
+			lessons.sort(Comparator.comparing(LessonDto::getStartTime));
+		}
+		return List.copyOf(lessons);
+	}
+}
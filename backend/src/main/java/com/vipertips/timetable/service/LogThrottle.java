@@ -0,0 +1,73 @@
+package com.vipertips.timetable.service;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Keeps hot paths from flooding the log. {@link #sample()} lets through one in N per-request
+ * events, {@link #permit(String)} lets a repeated warning through once per interval per key and
+ * reports how many were swallowed in between.
+ */
+@Component
+public class LogThrottle {
+
+	@Value("${logging.sampling.one-in:100}")
+	private int sampleOneIn;
+
+	@Value("${logging.rate-limit.interval-seconds:60}")
+	private long intervalSeconds;
+
+	@Value("${logging.rate-limit.max-keys:10000}")
+	private long maxKeys;
+
+	private long intervalNanos;
+	private Cache<String, Window> windows;
+
+	@PostConstruct
+	void init() {
+		intervalNanos = Duration.ofSeconds(Math.max(1, intervalSeconds)).toNanos();
+		windows = Caffeine.newBuilder()
+				.maximumSize(maxKeys)
+				.expireAfterAccess(Duration.ofNanos(intervalNanos * 2))
+				.build();
+	}
+
+	/**
+	 * @return true for roughly one call in {@code logging.sampling.one-in}
+	 */
+	public boolean sample() {
+		return sampleOneIn <= 1 || ThreadLocalRandom.current().nextInt(sampleOneIn) == 0;
+	}
+
+	/**
+	 * @return -1 if this occurrence should be dropped, otherwise the number of occurrences dropped
+	 *         since the key was last let through
+	 */
+	public long permit(String key) {
+		Window window = windows.get(key, k -> new Window());
+		long now = System.nanoTime();
+		synchronized (window) {
+			if (window.openedAt != 0 && now - window.openedAt < intervalNanos) {
+				window.suppressed++;
+				return -1;
+			}
+			window.openedAt = now;
+			long dropped = window.suppressed;
+			window.suppressed = 0;
+			return dropped;
+		}
+	}
+
+	private static final class Window {
+		private long openedAt;
+		private long suppressed;
+	}
+}
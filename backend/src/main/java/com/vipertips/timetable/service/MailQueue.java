@@ -0,0 +1,294 @@
+package com.vipertips.timetable.service;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.mail.javamail.MimeMessageHelper;
+import org.springframework.stereotype.Service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.mail.internet.InternetAddress;
+import jakarta.mail.internet.MimeMessage;
+
+/**
+ * Outbound mail buffer. Callers enqueue and return immediately; a fixed pool of workers does the
+ * SMTP round-trips, retrying failures with exponential backoff before parking them as dead letters.
+ */
+@Service
+public class MailQueue {
+	private static final Logger logger = LoggerFactory.getLogger(MailQueue.class);
+
+	@Autowired
+	private JavaMailSender javaMailSender;
+
+	@Autowired
+	private MeterRegistry meterRegistry;
+
+	@Autowired
+	private LogThrottle logThrottle;
+
+	@Value("${email.queue.capacity:1000}")
+	private int capacity;
+
+	@Value("${email.queue.workers:4}")
+	private int workers;
+
+	@Value("${email.queue.virtual-threads:true}")
+	private boolean virtualThreads;
+
+	@Value("${email.queue.max-attempts:5}")
+	private int maxAttempts;
+
+	@Value("${email.queue.initial-backoff-ms:1000}")
+	private long initialBackoffMs;
+
+	@Value("${email.queue.max-backoff-ms:60000}")
+	private long maxBackoffMs;
+
+	@Value("${email.queue.dead-letter-size:500}")
+	private int deadLetterSize;
+
+	@Value("${email.queue.shutdown-timeout-ms:10000}")
+	private long shutdownTimeoutMs;
+
+	// 0 = one connection per worker
+	@Value("${email.smtp.max-connections:0}")
+	private int maxSmtpConnections;
+
+	private BlockingQueue<OutboundEmail> queue;
+	private ExecutorService workerPool;
+	private ScheduledExecutorService retryScheduler;
+	private Semaphore smtpPermits;
+	private final Deque<DeadLetter> deadLetters = new ArrayDeque<>();
+	// retries waiting for their backoff, so a shutdown can dead-letter them instead of losing them
+	private final Set<PendingRetry> pendingRetries = ConcurrentHashMap.newKeySet();
+	private volatile boolean running;
+
+	private Timer delivered;
+	private Timer deliveryFailed;
+	private Counter retries;
+	private Counter deadLettered;
+
+	public record OutboundEmail(String fromEmail, String fromName, String to, String subject, String htmlBody,
+			int attempt) {
+
+		OutboundEmail nextAttempt() {
+			return new OutboundEmail(fromEmail, fromName, to, subject, htmlBody, attempt + 1);
+		}
+	}
+
+	public record DeadLetter(OutboundEmail email, String reason, long failedAt) {
+	}
+
+	// identity, not value, equality: two retries of the same message are separate entries
+	private final class PendingRetry implements Runnable {
+		private final OutboundEmail email;
+
+		PendingRetry(OutboundEmail email) {
+			this.email = email;
+		}
+
+		@Override
+		public void run() {
+			if (pendingRetries.remove(this)) {
+				enqueue(email.nextAttempt());
+			}
+		}
+	}
+
+	@PostConstruct
+	void start() {
+		queue = new ArrayBlockingQueue<>(capacity);
+		// workers can be raised freely on virtual threads, the SMTP server's connection limit stays put
+		smtpPermits = new Semaphore(maxSmtpConnections > 0 ? maxSmtpConnections : workers, true);
+		ThreadFactory factory = virtualThreads
+				? Thread.ofVirtual().name("mail-worker-", 0).factory()
+				: Thread.ofPlatform().name("mail-worker-", 0).daemon(true).factory();
+		workerPool = Executors.newFixedThreadPool(workers, factory);
+		retryScheduler = Executors.newSingleThreadScheduledExecutor(
+				Thread.ofPlatform().name("mail-retry").daemon(true).factory());
+		registerMetrics();
+		running = true;
+		for (int i = 0; i < workers; i++) {
+			workerPool.submit(this::drain);
+		}
+	}
+
+	private void registerMetrics() {
+		delivered = Timer.builder("email.delivery")
+				.description("SMTP round-trip per message attempt")
+				.tag("outcome", "success")
+				.register(meterRegistry);
+		deliveryFailed = Timer.builder("email.delivery")
+				.description("SMTP round-trip per message attempt")
+				.tag("outcome", "failure")
+				.register(meterRegistry);
+		retries = Counter.builder("email.retries").register(meterRegistry);
+		deadLettered = Counter.builder("email.dead.lettered").register(meterRegistry);
+		Gauge.builder("email.queue.depth", this, MailQueue::depth)
+				.description("Messages waiting for a mail worker")
+				.register(meterRegistry);
+		Gauge.builder("email.dead.letters.retained", deadLetters, letters -> {
+			synchronized (letters) {
+				return letters.size();
+			}
+		}).description("Dead letters currently retained").register(meterRegistry);
+	}
+
+	@PreDestroy
+	void stop() throws InterruptedException {
+		running = false;
+		retryScheduler.shutdownNow();
+		int dropped = 0;
+		for (PendingRetry retry : pendingRetries) {
+			if (pendingRetries.remove(retry)) {
+				deadLetter(retry.email, "shut down before retry");
+				dropped++;
+			}
+		}
+		if (dropped > 0) {
+			logger.warn("Mail queue stopped with {} retry(ies) pending, moved to the dead letters", dropped);
+		}
+		workerPool.shutdown();
+		if (!workerPool.awaitTermination(shutdownTimeoutMs, TimeUnit.MILLISECONDS)) {
+			workerPool.shutdownNow();
+			workerPool.awaitTermination(1, TimeUnit.SECONDS);
+		}
+		// whatever the workers did not get to before the timeout
+		List<OutboundEmail> undelivered = new ArrayList<>();
+		queue.drainTo(undelivered);
+		undelivered.forEach(email -> deadLetter(email, "shut down before delivery"));
+		if (!undelivered.isEmpty()) {
+			logger.warn("Mail queue stopped with {} message(s) undelivered, moved to the dead letters", undelivered.size());
+		}
+	}
+
+	/**
+	 * Queues the message without blocking. Returns false when the buffer is full or the queue is
+	 * shutting down, in which case the message goes straight to the dead-letter store.
+	 */
+	public boolean enqueue(OutboundEmail email) {
+		if (!running) {
+			deadLetter(email, "shut down before delivery");
+			return false;
+		}
+		if (queue.offer(email)) {
+			return true;
+		}
+		deadLetter(email, "queue full");
+		return false;
+	}
+
+	public int depth() {
+		return queue.size();
+	}
+
+	public List<DeadLetter> getDeadLetters() {
+		synchronized (deadLetters) {
+			return List.copyOf(deadLetters);
+		}
+	}
+
+	private void drain() {
+		while (running || !queue.isEmpty()) {
+			try {
+				OutboundEmail email = queue.poll(1, TimeUnit.SECONDS);
+				if (email != null) {
+					deliver(email);
+				}
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return;
+			}
+		}
+	}
+
+	private void deliver(OutboundEmail email) throws InterruptedException {
+		try {
+			smtpPermits.acquire();
+		} catch (InterruptedException e) {
+			deadLetter(email, "interrupted before delivery");
+			throw e;
+		}
+		long started = System.nanoTime();
+		try {
+			MimeMessage message = javaMailSender.createMimeMessage();
+			MimeMessageHelper helper = new MimeMessageHelper(message, true);
+			helper.setFrom(new InternetAddress(email.fromEmail(), email.fromName()));
+			helper.setTo(email.to());
+			helper.setSubject(email.subject());
+			helper.setText(email.htmlBody(), true);
+			javaMailSender.send(message);
+			delivered.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+			logger.debug("Email sent successfully to {}", email.to());
+		} catch (Exception e) {
+			deliveryFailed.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+			retryOrDeadLetter(email, e);
+			if (e instanceof InterruptedException) {
+				// keep the interrupt from shutdownNow, so the worker stops instead of taking the next message
+				Thread.currentThread().interrupt();
+			}
+		} finally {
+			smtpPermits.release();
+		}
+	}
+
+	private void retryOrDeadLetter(OutboundEmail email, Exception cause) {
+		if (email.attempt() + 1 >= maxAttempts || !running) {
+			deadLetter(email, cause.getMessage() != null ? cause.getMessage() : cause.getClass().getSimpleName());
+			return;
+		}
+		long backoff = Math.min(maxBackoffMs, initialBackoffMs << Math.min(email.attempt(), 20));
+		// an SMTP outage fails every message the same way, one line per interval is enough
+		long dropped = logThrottle.permit("mail.retry");
+		if (dropped >= 0) {
+			logger.warn("Failed to send email to {} (attempt {}), retrying in {} ms: {} ({} similar suppressed)",
+					email.to(), email.attempt() + 1, backoff, cause.getMessage(), dropped);
+		}
+		retries.increment();
+		PendingRetry retry = new PendingRetry(email);
+		pendingRetries.add(retry);
+		try {
+			retryScheduler.schedule(retry, backoff, TimeUnit.MILLISECONDS);
+		} catch (RejectedExecutionException e) {
+			// stop() ran between the running check and here
+			if (pendingRetries.remove(retry)) {
+				deadLetter(email, "shut down before retry");
+			}
+		}
+	}
+
+	private void deadLetter(OutboundEmail email, String reason) {
+		logger.error("Giving up on email to {} after {} attempt(s): {}", email.to(), email.attempt() + 1, reason);
+		deadLettered.increment();
+		synchronized (deadLetters) {
+			deadLetters.addLast(new DeadLetter(email, reason, System.currentTimeMillis()));
+			while (deadLetters.size() > deadLetterSize) {
+				deadLetters.pollFirst();
+			}
+		}
+	}
+}
@@ -0,0 +1,106 @@
+package com.vipertips.timetable.service;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.stereotype.Service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import com.vipertips.timetable.dto.AuthenticatedUser;
+import com.vipertips.timetable.repository.UserRepository;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Principals by email for the JWT filter. A second map from user id to the cached emails lets a
+ * profile change or delete evict a user without scanning the whole cache; it is kept in step under
+ * each key's lock, by the loader and by every removal.
+ */
+@Service
+public class PrincipalCache {
+	@Autowired
+	private UserRepository userRepository;
+
+	@Autowired
+	private MeterRegistry meterRegistry;
+
+	@Value("${auth.principal-cache.max-size:10000}")
+	private long maxSize;
+
+	@Value("${auth.principal-cache.ttl-seconds:300}")
+	private long ttlSeconds;
+
+	private Cache<String, AuthenticatedUser> principals;
+
+	private final Map<Integer, Set<String>> emailsByUser = new ConcurrentHashMap<>();
+
+	@PostConstruct
+	void init() {
+		principals = Caffeine.newBuilder()
+				.maximumSize(maxSize)
+				.expireAfterWrite(ttlSeconds, TimeUnit.SECONDS)
+				// runs atomically with the eviction, unlike removalListener
+				.evictionListener((String email, AuthenticatedUser principal, RemovalCause cause) -> {
+					if (principal != null) {
+						unindex(principal.getUserId(), email);
+					}
+				})
+				.recordStats()
+				.build();
+		CaffeineCacheMetrics.monitor(meterRegistry, principals, "auth.principals");
+	}
+
+	public AuthenticatedUser getByEmail(String email) {
+		return principals.get(email, this::load);
+	}
+
+	public void evict(String email) {
+		principals.asMap().computeIfPresent(email, (key, principal) -> {
+			unindex(principal.getUserId(), key);
+			return null;
+		});
+	}
+
+	public void evictByUserId(int userId) {
+		Set<String> emails = emailsByUser.get(userId);
+		if (emails != null) {
+			// a copy: evict removes from the set being walked
+			for (String email : Set.copyOf(emails)) {
+				evict(email);
+			}
+		}
+	}
+
+	int indexedUsers() {
+		return emailsByUser.size();
+	}
+
+	// runs inside the cache's compute for the email, so an eviction of the same key cannot interleave
+	private AuthenticatedUser load(String email) {
+		AuthenticatedUser principal = userRepository.findByEmail(email)
+				.map(AuthenticatedUser::from)
+				.orElseThrow(() -> new UsernameNotFoundException("User not found: " + email));
+		emailsByUser.compute(principal.getUserId(), (id, emails) -> {
+			Set<String> indexed = emails != null ? emails : ConcurrentHashMap.newKeySet();
+			indexed.add(email);
+			return indexed;
+		});
+		return principal;
+	}
+
+	private void unindex(int userId, String email) {
+		emailsByUser.computeIfPresent(userId, (id, emails) -> {
+			emails.remove(email);
+			return emails.isEmpty() ? null : emails;
+		});
+	}
+}
@@ -0,0 +1,130 @@
+package com.vipertips.timetable.service;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.temporal.ChronoUnit;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import com.vipertips.timetable.model.LessonSeries;
+import com.vipertips.timetable.model.LessonSeries.Frequency;
+
+/**
+ * Expands {@link LessonSeries} rules into occurrence start times for a bounded window.
+ */
+final class Recurrences {
+
+	private Recurrences() {
+	}
+
+	static Set<DayOfWeek> days(LessonSeries series) {
+		if (series.getByDays() == null || series.getByDays().isBlank()) {
+			return EnumSet.of(series.getStartTime().getDayOfWeek());
+		}
+		EnumSet<DayOfWeek> days = EnumSet.noneOf(DayOfWeek.class);
+		for (String day : series.getByDays().split(",")) {
+			days.add(DayOfWeek.valueOf(day.trim()));
+		}
+		return days;
+	}
+
+	static String byDays(Collection<DayOfWeek> days) {
+		if (days == null || days.isEmpty()) {
+			return null;
+		}
+		return EnumSet.copyOf(days).stream().map(DayOfWeek::name).collect(Collectors.joining(","));
+	}
+
+	/**
+	 * Start times of the occurrences beginning in [from, to), without cancelled ones.
+	 */
+	static List<LocalDateTime> occurrences(LessonSeries series, LocalDateTime from, LocalDateTime to) {
+		List<LocalDateTime> starts = new ArrayList<>();
+		LocalDate first = series.getStartTime().toLocalDate();
+		LocalTime time = series.getStartTime().toLocalTime();
+		Set<DayOfWeek> days = days(series);
+
+		LocalDate last = to.toLocalDate();
+		if (series.getUntilDate() != null && series.getUntilDate().isBefore(last)) {
+			last = series.getUntilDate();
+		}
+		LocalDate date = from.toLocalDate().isBefore(first) ? first : from.toLocalDate();
+		for (; !date.isAfter(last); date = date.plusDays(1)) {
+			long index = occurrenceIndex(series, days, first, date);
+			if (index < 0) {
+				continue;
+			}
+			if (series.getOccurrenceCount() != null && index >= series.getOccurrenceCount()) {
+				break;
+			}
+			LocalDateTime start = date.atTime(time);
+			if (!start.isBefore(from) && start.isBefore(to) && !series.getCancelledStarts().contains(start)) {
+				starts.add(start);
+			}
+		}
+		return starts;
+	}
+
+	/**
+	 * Whether every occurrence of the series, cancelled ones included, starts before {@code limit}.
+	 * Open-ended series never do.
+	 */
+	static boolean endsBefore(LessonSeries series, LocalDateTime limit) {
+		LocalTime time = series.getStartTime().toLocalTime();
+		if (series.getUntilDate() != null && series.getUntilDate().atTime(time).isBefore(limit)) {
+			return true;
+		}
+		Integer count = series.getOccurrenceCount();
+		if (count == null) {
+			return false;
+		}
+		if (count <= 0) {
+			return true;
+		}
+		Set<DayOfWeek> days = days(series);
+		LocalDate first = series.getStartTime().toLocalDate();
+		for (LocalDate date = first; date.atTime(time).isBefore(limit); date = date.plusDays(1)) {
+			if (occurrenceIndex(series, days, first, date) == count - 1) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Zero-based position of {@code date} within the series, or -1 if the series does not fall on it.
+	 * Computed arithmetically so occurrence counts work for windows far from the first occurrence.
+	 */
+	private static long occurrenceIndex(LessonSeries series, Set<DayOfWeek> days, LocalDate first, LocalDate date) {
+		int interval = Math.max(1, series.getIntervalCount());
+		if (series.getFrequency() == Frequency.DAILY) {
+			long elapsed = ChronoUnit.DAYS.between(first, date);
+			return elapsed % interval == 0 ? elapsed / interval : -1;
+		}
+
+		if (!days.contains(date.getDayOfWeek())) {
+			return -1;
+		}
+		LocalDate firstWeek = first.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+		long weeks = ChronoUnit.WEEKS.between(firstWeek, date.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY)));
+		if (weeks % interval != 0) {
+			return -1;
+		}
+		long period = weeks / interval;
+		int firstDay = first.getDayOfWeek().getValue();
+		int day = date.getDayOfWeek().getValue();
+		long inFirstPeriod = days.stream().filter(d -> d.getValue() >= firstDay).count();
+		long earlierInWeek = days.stream().filter(d -> d.getValue() < day).count();
+		if (period == 0) {
+			return earlierInWeek - (days.size() - inFirstPeriod);
+		}
+		return inFirstPeriod + (period - 1) * days.size() + earlierInWeek;
+	}
+}
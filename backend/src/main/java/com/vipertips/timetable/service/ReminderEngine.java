@@ -0,0 +1,302 @@
+package com.vipertips.timetable.service;
+
+import java.time.Duration;
+import java.net.InetAddress;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.vipertips.timetable.model.Lesson;
+import com.vipertips.timetable.model.Lesson.Status;
+import com.vipertips.timetable.repository.LessonRepository;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Fires lesson reminders from an in-memory delay queue ordered by fire time instead of scanning the
+ * lessons table every minute. Lessons are scheduled by {@link LessonService} as they are written;
+ * a periodic reconciliation loads the next horizon from the database to pick up anything this node
+ * has not seen, such as lessons created while it was down or on another node.
+ * <p>
+ * Several nodes may hold the same reminder. Before sending, a node atomically claims the due lessons
+ * with a time-limited lease; only the claimed ones are sent, and leases left behind by a crashed node
+ * expire and are picked up again by the next reconciliation.
+ */
+@Service
+public class ReminderEngine {
+	private static final Logger logger = LoggerFactory.getLogger(ReminderEngine.class);
+
+	@Autowired
+	private LessonRepository lessonRepository;
+
+	@Autowired
+	private EmailSender emailSender;
+
+	@Autowired
+	private MeterRegistry meterRegistry;
+
+	@Autowired
+	private ApplicationEventPublisher eventPublisher;
+
+	@Value("${reminder.lead-minutes:30}")
+	private int leadMinutes;
+
+	// lessons starting sooner than this are too late to remind about
+	@Value("${reminder.min-lead-minutes:10}")
+	private int minLeadMinutes;
+
+	@Value("${reminder.horizon-hours:24}")
+	private int horizonHours;
+
+	@Value("${reminder.batch-size:500}")
+	private int batchSize;
+
+	@Value("${reminder.lease-seconds:300}")
+	private long leaseSeconds;
+
+	@Value("${reminder.node-id:}")
+	private String nodeId;
+
+	private final DelayQueue<ScheduledReminder> queue = new DelayQueue<>();
+	private final Map<Integer, ScheduledReminder> scheduled = new ConcurrentHashMap<>();
+	private Thread dispatcher;
+
+	private Timer reconcileTimer;
+	private Timer dispatchTimer;
+	private Counter scannedLessons;
+	private Counter sentReminders;
+	private Counter failedReminders;
+
+	private static final class ScheduledReminder implements Delayed {
+		private final int lessonId;
+		private final long fireAtMillis;
+
+		ScheduledReminder(int lessonId, long fireAtMillis) {
+			this.lessonId = lessonId;
+			this.fireAtMillis = fireAtMillis;
+		}
+
+		@Override
+		public long getDelay(TimeUnit unit) {
+			return unit.convert(fireAtMillis - System.currentTimeMillis(), TimeUnit.MILLISECONDS);
+		}
+
+		@Override
+		public int compareTo(Delayed other) {
+			return Long.compare(fireAtMillis, ((ScheduledReminder) other).fireAtMillis);
+		}
+	}
+
+	@PostConstruct
+	void registerMetrics() {
+		reconcileTimer = Timer.builder("reminder.reconcile")
+				.description("Time to load the reminder horizon from the database")
+				.register(meterRegistry);
+		dispatchTimer = Timer.builder("reminder.dispatch")
+				.description("Time to claim, send and release one batch of due reminders")
+				.register(meterRegistry);
+		scannedLessons = Counter.builder("reminder.lessons.scanned")
+				.description("Lessons loaded by reminder reconciliation")
+				.register(meterRegistry);
+		sentReminders = Counter.builder("reminder.lessons")
+				.tag("result", "sent")
+				.register(meterRegistry);
+		failedReminders = Counter.builder("reminder.lessons")
+				.tag("result", "failed")
+				.register(meterRegistry);
+		Gauge.builder("reminder.scheduled", scheduled, Map::size)
+				.description("Reminders waiting in this node's delay queue")
+				.register(meterRegistry);
+	}
+
+	@EventListener(ApplicationReadyEvent.class)
+	public void start() {
+		if (nodeId == null || nodeId.isBlank()) {
+			nodeId = defaultNodeId();
+		}
+		logger.info("Reminder engine running as node {}", nodeId);
+		reconcile();
+		dispatcher = Thread.ofPlatform().name("reminder-dispatcher").daemon(true).start(this::dispatchLoop);
+	}
+
+	@PreDestroy
+	void stop() {
+		if (dispatcher != null) {
+			dispatcher.interrupt();
+		}
+	}
+
+	/**
+	 * Schedules (or reschedules) the reminder for a lesson. Lessons beyond the horizon are left to
+	 * the next reconciliation so the queue only holds the near future.
+	 */
+	public void schedule(int lessonId, LocalDateTime startTime) {
+		if (startTime == null) {
+			cancel(lessonId);
+			return;
+		}
+		LocalDateTime now = LocalDateTime.now();
+		if (startTime.isBefore(now.plusMinutes(minLeadMinutes))
+				|| startTime.isAfter(now.plusHours(horizonHours).plusMinutes(leadMinutes))) {
+			cancel(lessonId);
+			return;
+		}
+		long fireAt = toMillis(startTime.minusMinutes(leadMinutes));
+		ScheduledReminder existing = scheduled.get(lessonId);
+		if (existing != null && existing.fireAtMillis == fireAt) {
+			return;
+		}
+		ScheduledReminder reminder = new ScheduledReminder(lessonId, fireAt);
+		scheduled.put(lessonId, reminder);
+		queue.add(reminder);
+	}
+
+	public void cancel(int lessonId) {
+		// the queued entry becomes stale and is skipped when it comes due
+		scheduled.remove(lessonId);
+	}
+
+	public int size() {
+		return scheduled.size();
+	}
+
+	@Scheduled(fixedRateString = "${reminder.reconcile-interval-ms:3600000}",
+			initialDelayString = "${reminder.reconcile-interval-ms:3600000}")
+	public void reconcile() {
+		reconcileTimer.record(() -> {
+			LocalDateTime now = LocalDateTime.now();
+			List<Lesson> pending = lessonRepository.findReminderCandidates(Status.PENDING, Status.CLAIMED, now,
+					now.plusMinutes(minLeadMinutes), now.plusHours(horizonHours).plusMinutes(leadMinutes));
+			for (Lesson lesson : pending) {
+				schedule(lesson.getLessonId(), lesson.getStartTime());
+			}
+			scannedLessons.increment(pending.size());
+			logger.info("Reminder reconciliation scheduled {} pending lesson(s)", pending.size());
+		});
+	}
+
+	private void dispatchLoop() {
+		while (!Thread.currentThread().isInterrupted()) {
+			try {
+				List<Integer> due = new ArrayList<>();
+				collectIfCurrent(queue.take(), due);
+				ScheduledReminder next;
+				while (due.size() < batchSize && (next = queue.poll()) != null) {
+					collectIfCurrent(next, due);
+				}
+				if (!due.isEmpty()) {
+					dispatchTimer.record(() -> dispatch(due));
+				}
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			} catch (Exception e) {
+				logger.error("Reminder dispatch failed: {}", e.getMessage(), e);
+			}
+		}
+	}
+
+	private void collectIfCurrent(ScheduledReminder reminder, List<Integer> due) {
+		if (scheduled.remove(reminder.lessonId, reminder)) {
+			due.add(reminder.lessonId);
+		}
+	}
+
+	private void dispatch(List<Integer> lessonIds) {
+		LocalDateTime now = LocalDateTime.now();
+		// a second of slack, fire times are only kept to the millisecond
+		int claimed = lessonRepository.claimForReminder(Status.PENDING, Status.CLAIMED, lessonIds, nodeId,
+				now, now.plusSeconds(leaseSeconds), now.plusMinutes(minLeadMinutes),
+				now.plusMinutes(leadMinutes).plusSeconds(1));
+		List<Lesson> lessons = claimed == 0
+				? List.of()
+				: lessonRepository.findWithTeacherClaimedBy(Status.CLAIMED, lessonIds, nodeId);
+		if (lessons.size() < lessonIds.size()) {
+			rescheduleUnclaimed(lessonIds, lessons);
+		}
+		if (lessons.isEmpty()) {
+			return;
+		}
+		List<Integer> sentIds = new ArrayList<>(lessons.size());
+		List<Lesson> sent = new ArrayList<>(lessons.size());
+		List<Integer> failedIds = new ArrayList<>();
+		for (Lesson lesson : lessons) {
+			if (lesson.getStartTime().isBefore(now)) {
+				failedIds.add(lesson.getLessonId());
+				continue;
+			}
+			try {
+				int minutesBefore = (int) Math.max(1, Duration.between(now, lesson.getStartTime()).toMinutes());
+				// Only renders and enqueues, the mail workers do the SMTP calls in parallel
+				emailSender.sendLessonReminderEmail(
+						lesson.getUser().getEmail(),
+						lesson.getUser().getFirstName(),
+						lesson.getTitle(),
+						lesson.getStartTime().toString(),
+						minutesBefore);
+				sentIds.add(lesson.getLessonId());
+				sent.add(lesson);
+			} catch (Exception e) {
+				logger.error("Error sending reminder for lesson {}: {}", lesson.getLessonId(), e.getMessage());
+				failedIds.add(lesson.getLessonId());
+			}
+		}
+
+		// Mark the whole batch as SENT in one statement so we don't spam
+		if (!sentIds.isEmpty()) {
+			lessonRepository.releaseClaims(sentIds, nodeId, Status.SENT, LocalDateTime.now());
+			logger.info("Reminders sent for {} lesson(s)", sentIds.size());
+			sent.forEach(lesson -> eventPublisher.publishEvent(
+					TimetableChangeEvent.reminderSent(lesson.getUser().getUserId(), lesson.getLessonId())));
+		}
+		if (!failedIds.isEmpty()) {
+			lessonRepository.releaseClaims(failedIds, nodeId, Status.PENDING, LocalDateTime.now());
+		}
+		sentReminders.increment(sentIds.size());
+		failedReminders.increment(failedIds.size());
+	}
+
+	// lessons another node claimed are done; ones still pending were moved, so queue them at their new time
+	private void rescheduleUnclaimed(List<Integer> lessonIds, List<Lesson> claimed) {
+		List<Integer> unclaimed = new ArrayList<>(lessonIds);
+		claimed.forEach(lesson -> unclaimed.remove(Integer.valueOf(lesson.getLessonId())));
+		for (Lesson lesson : lessonRepository.findByIdsAndStatus(unclaimed, Status.PENDING)) {
+			schedule(lesson.getLessonId(), lesson.getStartTime());
+		}
+	}
+
+	private static String defaultNodeId() {
+		String host;
+		try {
+			host = InetAddress.getLocalHost().getHostName();
+		} catch (Exception e) {
+			host = "node";
+		}
+		return host + "-" + UUID.randomUUID().toString().substring(0, 8);
+	}
+
+	private static long toMillis(LocalDateTime time) {
+		return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+	}
+}
@@ -0,0 +1,134 @@
+package com.vipertips.timetable.service;
+
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.vipertips.timetable.model.TeacherVersion;
+import com.vipertips.timetable.model.User;
+import com.vipertips.timetable.repository.TeacherVersionRepository;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Per-teacher version counters behind the ETags of the polled read endpoints. The counters live in
+ * {@code teacher_versions} and every write bumps them in the transaction that writes, so all instances agree
+ * on the current tag and a 304 never hides a write made elsewhere.
+ *
+ * Some reads are served from caches local to this instance (the week cache, the conflict index, the
+ * user's second-level cache entry). When a tag is computed and the version differs from the one this instance last saw,
+ * those copies are dropped first, so the body sent with a new tag is never older than the tag.
+ */
+@Component
+public class ResourceVersions {
+
+	public enum Kind {
+		LESSONS, PROFILE
+	}
+
+	private record Key(Kind kind, int teacherId) {
+	}
+
+	@Autowired
+	private TeacherVersionRepository teacherVersionRepository;
+
+	@Autowired
+	private LessonWeekCache lessonWeekCache;
+
+	@Autowired
+	private LessonConflictService lessonConflictService;
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	private TransactionTemplate separateTransaction;
+
+	// last version seen here; an evicted entry only costs one extra drop of the local copies
+	private final Cache<Key, Long> seen = Caffeine.newBuilder()
+			.maximumSize(100_000)
+			.expireAfterAccess(1, TimeUnit.DAYS)
+			.build();
+
+	@PostConstruct
+	void init() {
+		separateTransaction = new TransactionTemplate(transactionManager);
+		separateTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+	}
+
+	/**
+	 * Strong ETag for the teacher's current version; {@code variant} holds whatever else shapes the
+	 * body, such as paging parameters. Take it before reading so a concurrent write cannot end up
+	 * cached under the new version with the old data.
+	 */
+	public String etag(Kind kind, int teacherId, Object... variant) {
+		long version = current(kind, teacherId);
+		StringBuilder tag = new StringBuilder("\"")
+				.append(kind.name().toLowerCase()).append('-')
+				.append(teacherId).append('-')
+				.append(version);
+		for (Object part : variant) {
+			tag.append('-').append(part);
+		}
+		return tag.append('"').toString();
+	}
+
+	/**
+	 * Bumps the stored version, inside the caller's transaction when there is one.
+	 */
+	public void bump(Kind kind, int teacherId) {
+		if (increment(kind, teacherId) == 0) {
+			createRow(teacherId);
+			increment(kind, teacherId);
+		}
+	}
+
+	private long current(Kind kind, int teacherId) {
+		long version = (kind == Kind.LESSONS
+				? teacherVersionRepository.findLessonsVersion(teacherId)
+				: teacherVersionRepository.findProfileVersion(teacherId)).orElse(0L);
+		Long previous = seen.asMap().put(new Key(kind, teacherId), version);
+		if (previous == null || previous != version) {
+			dropLocalCopies(kind, teacherId);
+		}
+		return version;
+	}
+
+	private int increment(Kind kind, int teacherId) {
+		return kind == Kind.LESSONS
+				? teacherVersionRepository.bumpLessons(teacherId)
+				: teacherVersionRepository.bumpProfile(teacherId);
+	}
+
+	// in its own transaction, so two first writes racing for the row cannot roll back the caller
+	private void createRow(int teacherId) {
+		try {
+			separateTransaction.executeWithoutResult(status -> {
+				if (!teacherVersionRepository.existsById(teacherId)) {
+					teacherVersionRepository.saveAndFlush(new TeacherVersion(teacherId, 0, 0));
+				}
+			});
+		} catch (DataIntegrityViolationException e) {
+			// created concurrently
+		}
+	}
+
+	private void dropLocalCopies(Kind kind, int teacherId) {
+		if (kind == Kind.LESSONS) {
+			lessonWeekCache.invalidateTeacher(teacherId);
+			lessonConflictService.invalidateTeacher(teacherId);
+		} else {
+			entityManagerFactory.getCache().evict(User.class, teacherId);
+		}
+	}
+}
@@ -0,0 +1,49 @@
+package com.vipertips.timetable.service;
+
+import com.vipertips.timetable.dto.LessonDto;
+
+/**
+ * Published in-process whenever a teacher's timetable changes; {@link LessonEventStream} pushes it to
+ * the teacher's open streams. {@code lesson} is set for creates and updates only, bulk changes carry
+ * neither id nor lesson and mean "re-fetch".
+ */
+public record TimetableChangeEvent(int teacherId, Type type, Integer lessonId, LessonDto lesson) {
+
+	public enum Type {
+		CREATED("lesson.created"),
+		UPDATED("lesson.updated"),
+		DELETED("lesson.deleted"),
+		CHANGED("lessons.changed"),
+		REMINDER_SENT("reminder.sent");
+
+		private final String eventName;
+
+		Type(String eventName) {
+			this.eventName = eventName;
+		}
+
+		public String eventName() {
+			return eventName;
+		}
+	}
+
+	public static TimetableChangeEvent created(int teacherId, LessonDto lesson) {
+		return new TimetableChangeEvent(teacherId, Type.CREATED, lesson.getLessonId(), lesson);
+	}
+
+	public static TimetableChangeEvent updated(int teacherId, LessonDto lesson) {
+		return new TimetableChangeEvent(teacherId, Type.UPDATED, lesson.getLessonId(), lesson);
+	}
+
+	public static TimetableChangeEvent deleted(int teacherId, int lessonId) {
+		return new TimetableChangeEvent(teacherId, Type.DELETED, lessonId, null);
+	}
+
+	public static TimetableChangeEvent changed(int teacherId) {
+		return new TimetableChangeEvent(teacherId, Type.CHANGED, null, null);
+	}
+
+	public static TimetableChangeEvent reminderSent(int teacherId, int lessonId) {
+		return new TimetableChangeEvent(teacherId, Type.REMINDER_SENT, lessonId, null);
+	}
+}
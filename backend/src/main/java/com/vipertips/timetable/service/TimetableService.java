@@ -0,0 +1,404 @@
+package com.vipertips.timetable.service;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.vipertips.timetable.dto.LessonBatchDto;
+import com.vipertips.timetable.dto.LessonDto;
+import com.vipertips.timetable.dto.TimetableJobDto;
+import com.vipertips.timetable.dto.TimetableJobDto.Entry;
+import com.vipertips.timetable.dto.TimetableJobDto.Status;
+import com.vipertips.timetable.dto.TimetableRequestDto;
+import com.vipertips.timetable.dto.TimetableRequestDto.Availability;
+import com.vipertips.timetable.dto.TimetableRequestDto.Requirement;
+import com.vipertips.timetable.model.User;
+import com.vipertips.timetable.model.User.Role;
+import com.vipertips.timetable.repository.UserRepository;
+import com.vipertips.timetable.response.LessonBatchResult;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Runs school-wide timetable generation as background jobs. The problem is validated and built when
+ * the job is submitted, so bad input fails the request; the search then runs on a dedicated pool and
+ * callers poll the job for progress and the best timetable found so far.
+ */
+@Service
+public class TimetableService {
+	private static final Logger logger = LoggerFactory.getLogger(TimetableService.class);
+
+	@Autowired
+	private UserRepository userRepository;
+
+	@Autowired
+	private LessonConflictService lessonConflictService;
+
+	@Autowired
+	private LessonService lessonService;
+
+	@Value("${timetable.default-budget-ms:10000}")
+	private long defaultBudgetMs;
+
+	@Value("${timetable.max-budget-ms:60000}")
+	private long maxBudgetMs;
+
+	// 0 uses every core
+	@Value("${timetable.workers:0}")
+	private int workers;
+
+	@Value("${timetable.max-queued-jobs:10}")
+	private int maxQueuedJobs;
+
+	@Value("${timetable.job-ttl-minutes:60}")
+	private long jobTtlMinutes;
+
+	private ExecutorService jobRunner;
+	private ExecutorService solverPool;
+	private Cache<String, Job> jobs;
+
+	/**
+	 * A submitted solve. Mutable fields are written by the job thread and read by pollers.
+	 */
+	private static final class Job {
+		final String id = UUID.randomUUID().toString();
+		final TimetableSolver.Problem problem;
+		final Model model;
+		final long budgetMs;
+		volatile Status status = Status.QUEUED;
+		volatile long startedAt;
+		volatile long finishedAt;
+		volatile long iterations;
+		volatile TimetableSolver.Solution best;
+		volatile String message;
+		// held while applying; a lock rather than a monitor, applying blocks on JDBC batches
+		final Lock applying = new ReentrantLock();
+
+		Job(TimetableSolver.Problem problem, Model model, long budgetMs) {
+			this.problem = problem;
+			this.model = model;
+			this.budgetMs = budgetMs;
+		}
+	}
+
+	/**
+	 * Maps the solver's indexes back to teachers, requirements and times.
+	 */
+	private record Model(List<User> teachers, List<Requirement> requirements, List<LocalDateTime> periodStarts,
+			int lessonMinutes, List<String> rooms) {
+	}
+
+	@PostConstruct
+	void init() {
+		int threads = workers > 0 ? workers : Runtime.getRuntime().availableProcessors();
+		workers = threads;
+		// one job at a time gets every solver thread; further jobs wait their turn
+		jobRunner = Executors.newSingleThreadExecutor(Thread.ofPlatform().name("timetable-job").daemon(true).factory());
+		solverPool = Executors.newFixedThreadPool(threads,
+				Thread.ofPlatform().name("timetable-solver-", 0).daemon(true).factory());
+		jobs = Caffeine.newBuilder().expireAfterWrite(jobTtlMinutes, TimeUnit.MINUTES).build();
+	}
+
+	@PreDestroy
+	void stop() {
+		jobRunner.shutdownNow();
+		solverPool.shutdownNow();
+	}
+
+	public TimetableJobDto submit(TimetableRequestDto request) {
+		long waiting = jobs.asMap().values().stream()
+				.filter(job -> job.status == Status.QUEUED || job.status == Status.RUNNING).count();
+		if (waiting >= maxQueuedJobs) {
+			throw new RuntimeException("Too many timetable jobs in progress, try again later");
+		}
+
+		Model model = buildModel(request);
+		TimetableSolver.Problem problem = buildProblem(request, model);
+		long budget = request.getTimeBudgetMs() != null ? request.getTimeBudgetMs() : defaultBudgetMs;
+		Job job = new Job(problem, model, Math.max(100, Math.min(budget, maxBudgetMs)));
+		jobs.put(job.id, job);
+		jobRunner.submit(() -> run(job));
+		return toDto(job);
+	}
+
+	public TimetableJobDto getJob(String jobId) {
+		return toDto(findJob(jobId));
+	}
+
+	/**
+	 * Stores a finished, conflict-free timetable as lessons, one batch per teacher, so reminders,
+	 * caches and the double-booking check apply exactly as for hand-entered lessons.
+	 */
+	public TimetableJobDto apply(String jobId) {
+		Job job = findJob(jobId);
+		job.applying.lock();
+		try {
+			if (job.status != Status.FINISHED) {
+				throw new RuntimeException("Only a finished timetable can be applied, this one is " + job.status);
+			}
+			if (job.best == null || job.best.hard() > 0) {
+				throw new RuntimeException("The timetable still has conflicts and cannot be applied");
+			}
+
+			Map<Integer, LessonBatchDto> batches = new LinkedHashMap<>();
+			for (Entry entry : entries(job)) {
+				LessonDto lesson = new LessonDto();
+				lesson.setTitle(entry.getSubject() + " - " + entry.getGroup());
+				lesson.setLessonAbout("Group " + entry.getGroup() + ", room " + entry.getRoom());
+				lesson.setStartTime(entry.getStartTime());
+				lesson.setEndTime(entry.getEndTime());
+				batches.computeIfAbsent(entry.getTeacherId(), id -> new LessonBatchDto()).getCreate().add(lesson);
+			}
+
+			int created = 0;
+			int failed = 0;
+			for (Map.Entry<Integer, LessonBatchDto> batch : batches.entrySet()) {
+				for (LessonBatchResult result : lessonService.applyBatch(batch.getValue(), batch.getKey())) {
+					if (result.isSuccess()) {
+						created++;
+					} else {
+						failed++;
+					}
+				}
+			}
+			job.status = Status.APPLIED;
+			job.message = created + " lesson(s) created" + (failed > 0 ? ", " + failed + " rejected" : "");
+			jobs.put(job.id, job);
+			return toDto(job);
+		} finally {
+			job.applying.unlock();
+		}
+	}
+
+	private void run(Job job) {
+		job.status = Status.RUNNING;
+		job.startedAt = System.currentTimeMillis();
+		try {
+			TimetableSolver solver = new TimetableSolver(job.problem, solverPool, workers);
+			TimetableSolver.Solution solution = solver.solve(job.budgetMs, (best, iterations) -> {
+				job.best = best;
+				job.iterations = iterations;
+			});
+			job.best = solution;
+			job.iterations = solver.iterations();
+			job.message = solution.hard() == 0
+					? "Conflict-free timetable found"
+					: "No conflict-free timetable found within the time budget, " + solution.hard() + " conflict(s) left";
+			job.status = Status.FINISHED;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			job.message = "Interrupted";
+			job.status = Status.FAILED;
+		} catch (RuntimeException e) {
+			logger.error("Timetable job {} failed", job.id, e);
+			job.message = e.getMessage();
+			job.status = Status.FAILED;
+		} finally {
+			job.finishedAt = System.currentTimeMillis();
+		}
+		logger.info("Timetable job {} {} in {} ms", job.id, job.status, job.finishedAt - job.startedAt);
+	}
+
+	private Job findJob(String jobId) {
+		Job job = jobs.getIfPresent(jobId);
+		if (job == null) {
+			throw new RuntimeException("Timetable job not found");
+		}
+		return job;
+	}
+
+	private Model buildModel(TimetableRequestDto request) {
+		if (request.getWeekOf() == null) {
+			throw new RuntimeException("weekOf is required");
+		}
+		if (request.getRooms().isEmpty()) {
+			throw new RuntimeException("At least one room is required");
+		}
+		if (request.getRequirements().isEmpty()) {
+			throw new RuntimeException("At least one requirement is required");
+		}
+		if (request.getLessonMinutes() <= 0 || !request.getDayStart().isBefore(request.getDayEnd())) {
+			throw new RuntimeException("The school day must be longer than zero and lessons must have a positive length");
+		}
+
+		LocalDate monday = LessonWeekCache.weekStart(request.getWeekOf().atStartOfDay());
+		List<LocalDateTime> periodStarts = new ArrayList<>();
+		for (DayOfWeek day : new TreeSet<>(request.getDays())) {
+			LocalDate date = monday.plusDays(day.getValue() - 1L);
+			for (LocalTime time = request.getDayStart();
+					!time.plusMinutes(request.getLessonMinutes()).isAfter(request.getDayEnd())
+							&& !time.plusMinutes(request.getLessonMinutes()).isBefore(time);
+					time = time.plusMinutes(request.getLessonMinutes())) {
+				periodStarts.add(date.atTime(time));
+			}
+		}
+		if (periodStarts.isEmpty()) {
+			throw new RuntimeException("No lesson periods fit into the school day");
+		}
+
+		for (Requirement requirement : request.getRequirements()) {
+			if (requirement.getSubject() == null || requirement.getSubject().isBlank()
+					|| requirement.getGroup() == null || requirement.getGroup().isBlank()
+					|| requirement.getHoursPerWeek() <= 0) {
+				throw new RuntimeException("Every requirement needs a subject, a group and hoursPerWeek > 0");
+			}
+		}
+		return new Model(userRepository.findByRole(Role.TEACHER), List.copyOf(request.getRequirements()),
+				periodStarts, request.getLessonMinutes(), List.copyOf(request.getRooms()));
+	}
+
+	private TimetableSolver.Problem buildProblem(TimetableRequestDto request, Model model) {
+		TimetableSolver.Problem problem = new TimetableSolver.Problem();
+		problem.periods = model.periodStarts().size();
+		problem.rooms = model.rooms().size();
+
+		Map<LocalDate, Integer> dayIndexes = new HashMap<>();
+		problem.periodDay = new int[problem.periods];
+		for (int p = 0; p < problem.periods; p++) {
+			LocalDate date = model.periodStarts().get(p).toLocalDate();
+			problem.periodDay[p] = dayIndexes.computeIfAbsent(date, d -> dayIndexes.size());
+		}
+		problem.days = dayIndexes.size();
+
+		Map<Integer, List<Availability>> windows = new HashMap<>();
+		for (Availability window : request.getAvailability()) {
+			windows.computeIfAbsent(window.getTeacherId(), id -> new ArrayList<>()).add(window);
+		}
+		problem.teachers = model.teachers().size();
+		problem.teacherAllowed = new boolean[problem.teachers][problem.periods];
+		LocalDateTime weekStart = model.periodStarts().get(0).toLocalDate().atStartOfDay();
+		LocalDateTime weekEnd = model.periodStarts().get(problem.periods - 1).plusMinutes(model.lessonMinutes());
+		for (int t = 0; t < problem.teachers; t++) {
+			int teacherId = model.teachers().get(t).getUserId();
+			// lessons already in the teacher's timetable are fixed
+			List<LessonDto> booked = lessonConflictService.findConflicts(teacherId, weekStart, weekEnd, null);
+			for (int p = 0; p < problem.periods; p++) {
+				LocalDateTime start = model.periodStarts().get(p);
+				LocalDateTime end = start.plusMinutes(model.lessonMinutes());
+				problem.teacherAllowed[t][p] = available(windows.get(teacherId), start, end) && free(booked, start, end);
+			}
+		}
+
+		Map<String, List<Integer>> teachersBySubject = new HashMap<>();
+		for (int t = 0; t < problem.teachers; t++) {
+			String subject = model.teachers().get(t).getSubject();
+			if (subject != null && !subject.isBlank()) {
+				teachersBySubject.computeIfAbsent(normalize(subject), s -> new ArrayList<>()).add(t);
+			}
+		}
+		Map<String, Integer> groupIndexes = new HashMap<>();
+		int requirements = model.requirements().size();
+		problem.reqGroup = new int[requirements];
+		problem.reqHours = new int[requirements];
+		problem.reqEligible = new int[requirements][];
+		for (int r = 0; r < requirements; r++) {
+			Requirement requirement = model.requirements().get(r);
+			List<Integer> eligible = teachersBySubject.get(normalize(requirement.getSubject()));
+			if (eligible == null) {
+				throw new RuntimeException("No teacher teaches " + requirement.getSubject());
+			}
+			problem.reqEligible[r] = eligible.stream().mapToInt(Integer::intValue).toArray();
+			problem.reqHours[r] = requirement.getHoursPerWeek();
+			problem.reqGroup[r] = groupIndexes.computeIfAbsent(normalize(requirement.getGroup()), g -> groupIndexes.size());
+		}
+		problem.groups = groupIndexes.size();
+
+		int units = problem.units();
+		long capacity = (long) problem.periods * problem.rooms;
+		if (units > capacity) {
+			throw new RuntimeException(units + " lesson(s) are required but only " + capacity + " room periods exist");
+		}
+		return problem;
+	}
+
+	private boolean available(List<Availability> windows, LocalDateTime start, LocalDateTime end) {
+		if (windows == null) {
+			return true;
+		}
+		for (Availability window : windows) {
+			if (window.getDay() == start.getDayOfWeek() && window.getFrom() != null && window.getTo() != null
+					&& !start.toLocalTime().isBefore(window.getFrom()) && !end.toLocalTime().isAfter(window.getTo())) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private boolean free(List<LessonDto> booked, LocalDateTime start, LocalDateTime end) {
+		for (LessonDto lesson : booked) {
+			if (lesson.getStartTime().isBefore(end) && lesson.getEndTime().isAfter(start)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private String normalize(String value) {
+		return value.trim().toLowerCase(Locale.ROOT);
+	}
+
+	private List<Entry> entries(Job job) {
+		TimetableSolver.Solution solution = job.best;
+		Model model = job.model;
+		List<Entry> entries = new ArrayList<>(solution.unitPeriod().length);
+		int[] roomsUsed = new int[model.periodStarts().size()];
+		for (int u = 0; u < solution.unitPeriod().length; u++) {
+			int p = solution.unitPeriod()[u];
+			int r = solution.unitReq()[u];
+			Requirement requirement = model.requirements().get(r);
+			User teacher = model.teachers().get(solution.reqTeacher()[r]);
+			// rooms are interchangeable, so they are handed out per period in order
+			String room = roomsUsed[p] < model.rooms().size() ? model.rooms().get(roomsUsed[p]++) : null;
+			LocalDateTime start = model.periodStarts().get(p);
+			entries.add(new Entry(teacher.getUserId(), requirement.getSubject(), requirement.getGroup(), room, start,
+					start.plusMinutes(model.lessonMinutes())));
+		}
+		entries.sort((a, b) -> a.getStartTime().compareTo(b.getStartTime()));
+		return entries;
+	}
+
+	private TimetableJobDto toDto(Job job) {
+		long now = System.currentTimeMillis();
+		long elapsed = job.startedAt == 0 ? 0 : (job.finishedAt > 0 ? job.finishedAt : now) - job.startedAt;
+		int progress = switch (job.status) {
+			case QUEUED -> 0;
+			case RUNNING -> (int) Math.min(99, elapsed * 100 / job.budgetMs);
+			default -> 100;
+		};
+		TimetableSolver.Solution best = job.best;
+		return TimetableJobDto.builder()
+				.jobId(job.id)
+				.status(job.status)
+				.progress(progress)
+				.elapsedMs(elapsed)
+				.iterations(job.iterations)
+				.hardViolations(best != null ? best.hard() : 0)
+				.softPenalty(best != null ? best.soft() : 0)
+				.message(job.message)
+				.lessons(best != null ? entries(job) : null)
+				.build();
+	}
+}
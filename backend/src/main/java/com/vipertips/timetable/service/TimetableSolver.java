@@ -0,0 +1,382 @@
+package com.vipertips.timetable.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Assigns every required lesson unit a period and every requirement a teacher. Workers run
+ * independent greedy constructions followed by late acceptance hill climbing and share only the best
+ * solution found, so the search scales with the cores it is given and can stop at any time.
+ *
+ * Hard constraints: a teacher, a group and a room hold at most one lesson per period, and teachers
+ * only teach in their allowed periods. Soft: a group should not have the same subject twice a day.
+ */
+final class TimetableSolver {
+
+	// hard violations in the high word: costs compare by hard first and only then by soft
+	private static final int HARD_SHIFT = 32;
+	private static final int HISTORY_LENGTH = 2000;
+	// a start that has not improved its own best for this many moves is abandoned for a fresh one
+	private static final long STAGNATION_LIMIT = 2_000_000;
+
+	/**
+	 * The problem in index form. Built once per job and shared read-only by all workers.
+	 */
+	static final class Problem {
+		int periods;
+		int days;
+		int[] periodDay;
+		int teachers;
+		boolean[][] teacherAllowed;
+		int groups;
+		int rooms;
+		int[] reqGroup;
+		int[] reqHours;
+		int[][] reqEligible;
+
+		int units() {
+			return Arrays.stream(reqHours).sum();
+		}
+	}
+
+	record Solution(int[] unitPeriod, int[] unitReq, int[] reqTeacher, int hard, int soft) {
+		long cost() {
+			return TimetableSolver.cost(hard, soft);
+		}
+	}
+
+	static long cost(int hard, int soft) {
+		return ((long) hard << HARD_SHIFT) + soft;
+	}
+
+	interface Progress {
+		void update(Solution best, long iterations);
+	}
+
+	private final Problem problem;
+	private final ExecutorService pool;
+	private final int workers;
+	private final AtomicLong iterations = new AtomicLong();
+	private volatile Solution best;
+
+	TimetableSolver(Problem problem, ExecutorService pool, int workers) {
+		this.problem = problem;
+		this.pool = pool;
+		this.workers = Math.max(1, workers);
+	}
+
+	Solution solve(long budgetMs, Progress progress) throws InterruptedException {
+		long deadline = System.nanoTime() + budgetMs * 1_000_000L;
+		List<Future<?>> running = new ArrayList<>(workers);
+		for (int i = 0; i < workers; i++) {
+			long seed = System.nanoTime() ^ (0x9E3779B97F4A7C15L * (i + 1));
+			running.add(pool.submit(() -> search(new SplittableRandom(seed), deadline, progress)));
+		}
+		try {
+			for (Future<?> future : running) {
+				future.get();
+			}
+		} catch (ExecutionException e) {
+			throw new IllegalStateException("Solver worker failed", e.getCause());
+		} finally {
+			running.forEach(future -> future.cancel(true));
+		}
+		return best;
+	}
+
+	long iterations() {
+		return iterations.get();
+	}
+
+	private void search(SplittableRandom random, long deadline, Progress progress) {
+		while (!finished(deadline)) {
+			State state = new State(random);
+			state.construct();
+			offer(state, progress);
+
+			long[] history = new long[HISTORY_LENGTH];
+			Arrays.fill(history, state.cost());
+			long startBest = state.cost();
+			long sinceImprovement = 0;
+			long step = 0;
+			while (sinceImprovement < STAGNATION_LIMIT) {
+				// checking the clock every move would dominate the loop
+				if ((step & 0x3FFF) == 0) {
+					if (step > 0) {
+						iterations.addAndGet(0x4000);
+					}
+					if (finished(deadline)) {
+						break;
+					}
+				}
+				long before = state.cost();
+				long after = state.tryMove();
+				int slot = (int) (step % HISTORY_LENGTH);
+				if (after <= before || after <= history[slot]) {
+					if (after < startBest) {
+						startBest = after;
+						sinceImprovement = 0;
+						offer(state, progress);
+					} else {
+						sinceImprovement++;
+					}
+				} else {
+					state.undo();
+					sinceImprovement++;
+				}
+				history[slot] = state.cost();
+				step++;
+			}
+		}
+	}
+
+	private boolean finished(long deadline) {
+		Solution current = best;
+		return Thread.currentThread().isInterrupted() || System.nanoTime() >= deadline
+				|| (current != null && current.cost() == 0);
+	}
+
+	private void offer(State state, Progress progress) {
+		if (best != null && state.cost() >= best.cost()) {
+			return;
+		}
+		Solution candidate = state.snapshot();
+		// published under the lock so a slower worker's older, worse solution cannot overwrite it
+		synchronized (this) {
+			if (best != null && candidate.cost() >= best.cost()) {
+				return;
+			}
+			best = candidate;
+			progress.update(candidate, iterations.get());
+		}
+	}
+
+	/**
+	 * One worker's assignment with the occupancy counts needed to score a move in constant time.
+	 */
+	final class State {
+		private final SplittableRandom random;
+		private final int[] unitReq;
+		private final int[] unitPeriod;
+		private final int[] reqTeacher;
+		private final int[][] reqUnits;
+		private final int[][] teacherLoad;
+		private final int[][] groupLoad;
+		private final int[] periodLoad;
+		private final int[][] reqDayLoad;
+		// periods of units taken out by remove(), so changeTeacher can put them back
+		private final int[] lastPeriods;
+		private int hard;
+		private int soft;
+
+		// last move, for undo: a single unit, a swap or a teacher change
+		private int lastUnit = -1, lastFrom, lastOther = -1, lastReq = -1, lastTeacher;
+
+		State(SplittableRandom random) {
+			this.random = random;
+			int units = problem.units();
+			unitReq = new int[units];
+			unitPeriod = new int[units];
+			reqTeacher = new int[problem.reqHours.length];
+			reqUnits = new int[problem.reqHours.length][];
+			int u = 0;
+			for (int r = 0; r < problem.reqHours.length; r++) {
+				reqUnits[r] = new int[problem.reqHours[r]];
+				for (int h = 0; h < problem.reqHours[r]; h++) {
+					unitReq[u] = r;
+					reqUnits[r][h] = u++;
+				}
+			}
+			teacherLoad = new int[problem.teachers][problem.periods];
+			groupLoad = new int[problem.groups][problem.periods];
+			periodLoad = new int[problem.periods];
+			reqDayLoad = new int[problem.reqHours.length][problem.days];
+			lastPeriods = new int[units];
+			Arrays.fill(unitPeriod, -1);
+		}
+
+		long cost() {
+			return TimetableSolver.cost(hard, soft);
+		}
+
+		Solution snapshot() {
+			return new Solution(unitPeriod.clone(), unitReq, reqTeacher.clone(), hard, soft);
+		}
+
+		/**
+		 * Most constrained requirements first, each to its least loaded teacher, each unit to the
+		 * cheapest period; ties are broken randomly so every start explores a different region.
+		 */
+		void construct() {
+			Integer[] order = new Integer[reqUnits.length];
+			for (int r = 0; r < order.length; r++) {
+				order[r] = r;
+			}
+			double[] noise = random.doubles(order.length).toArray();
+			Arrays.sort(order, (a, b) -> {
+				int byChoice = Integer.compare(problem.reqEligible[a].length, problem.reqEligible[b].length);
+				if (byChoice != 0) {
+					return byChoice;
+				}
+				int byHours = Integer.compare(problem.reqHours[b], problem.reqHours[a]);
+				return byHours != 0 ? byHours : Double.compare(noise[a], noise[b]);
+			});
+
+			int[] assignedHours = new int[problem.teachers];
+			for (int r : order) {
+				int chosen = -1;
+				int ties = 0;
+				for (int t : problem.reqEligible[r]) {
+					if (chosen < 0 || assignedHours[t] < assignedHours[chosen]) {
+						chosen = t;
+						ties = 1;
+					} else if (assignedHours[t] == assignedHours[chosen] && random.nextInt(++ties) == 0) {
+						chosen = t;
+					}
+				}
+				reqTeacher[r] = chosen;
+				assignedHours[chosen] += problem.reqHours[r];
+
+				for (int u : reqUnits[r]) {
+					int bestPeriod = -1;
+					long bestCost = Long.MAX_VALUE;
+					ties = 0;
+					for (int p = 0; p < problem.periods; p++) {
+						long cost = place(u, p);
+						remove(u);
+						if (cost < bestCost) {
+							bestCost = cost;
+							bestPeriod = p;
+							ties = 1;
+						} else if (cost == bestCost && random.nextInt(++ties) == 0) {
+							bestPeriod = p;
+						}
+					}
+					place(u, bestPeriod);
+				}
+			}
+		}
+
+		/**
+		 * Applies a random move and returns the new cost; {@link #undo()} reverts it.
+		 */
+		long tryMove() {
+			lastUnit = -1;
+			lastOther = -1;
+			lastReq = -1;
+			int roll = random.nextInt(100);
+			int u = random.nextInt(unitPeriod.length);
+			if (roll < 5) {
+				int r = unitReq[u];
+				int[] eligible = problem.reqEligible[r];
+				if (eligible.length > 1) {
+					lastReq = r;
+					lastTeacher = reqTeacher[r];
+					changeTeacher(r, eligible[random.nextInt(eligible.length)]);
+					return cost();
+				}
+			}
+			lastUnit = u;
+			lastFrom = unitPeriod[u];
+			if (roll < 50) {
+				int v = random.nextInt(unitPeriod.length);
+				if (v != u) {
+					lastOther = v;
+					int to = unitPeriod[v];
+					remove(v);
+					move(u, to);
+					place(v, lastFrom);
+					return cost();
+				}
+			}
+			move(u, random.nextInt(problem.periods));
+			return cost();
+		}
+
+		void undo() {
+			if (lastReq >= 0) {
+				changeTeacher(lastReq, lastTeacher);
+			} else if (lastOther >= 0) {
+				int otherFrom = unitPeriod[lastUnit];
+				remove(lastOther);
+				move(lastUnit, lastFrom);
+				place(lastOther, otherFrom);
+			} else if (lastUnit >= 0) {
+				move(lastUnit, lastFrom);
+			}
+		}
+
+		private void move(int u, int p) {
+			remove(u);
+			place(u, p);
+		}
+
+		private void changeTeacher(int r, int teacher) {
+			for (int u : reqUnits[r]) {
+				remove(u);
+			}
+			reqTeacher[r] = teacher;
+			for (int u : reqUnits[r]) {
+				place(u, lastPeriods[u]);
+			}
+		}
+
+		private long place(int u, int p) {
+			int r = unitReq[u];
+			int t = reqTeacher[r];
+			int g = problem.reqGroup[r];
+			int d = problem.periodDay[p];
+			if (teacherLoad[t][p]++ >= 1) {
+				hard++;
+			}
+			if (groupLoad[g][p]++ >= 1) {
+				hard++;
+			}
+			if (periodLoad[p]++ >= problem.rooms) {
+				hard++;
+			}
+			if (!problem.teacherAllowed[t][p]) {
+				hard++;
+			}
+			if (reqDayLoad[r][d]++ >= 1) {
+				soft++;
+			}
+			unitPeriod[u] = p;
+			return cost();
+		}
+
+		private void remove(int u) {
+			int p = unitPeriod[u];
+			if (p < 0) {
+				return;
+			}
+			int r = unitReq[u];
+			int t = reqTeacher[r];
+			int g = problem.reqGroup[r];
+			int d = problem.periodDay[p];
+			if (--teacherLoad[t][p] >= 1) {
+				hard--;
+			}
+			if (--groupLoad[g][p] >= 1) {
+				hard--;
+			}
+			if (--periodLoad[p] >= problem.rooms) {
+				hard--;
+			}
+			if (!problem.teacherAllowed[t][p]) {
+				hard--;
+			}
+			if (--reqDayLoad[r][d] >= 1) {
+				soft--;
+			}
+			lastPeriods[u] = p;
+			unitPeriod[u] = -1;
+		}
+	}
+}
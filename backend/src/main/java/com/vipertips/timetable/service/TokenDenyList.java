@@ -0,0 +1,81 @@
+package com.vipertips.timetable.service;
+
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+
+import io.jsonwebtoken.Claims;
+import jakarta.annotation.PostConstruct;
+
+/**
+ * In-memory revocation list for signed tokens. Individual tokens are denied by their id until they
+ * expire on their own; whole users are denied for anything issued before the revocation time.
+ */
+@Service
+public class TokenDenyList {
+
+	@Value("${jwt.deny-list.max-size:10000}")
+	private long maxSize;
+
+	@Value("${jwt.deny-list.user-ttl-hours:168}")
+	private long userTtlHours;
+
+	private Cache<String, Date> deniedTokens;
+	private Cache<Integer, Long> revokedUsers;
+
+	@PostConstruct
+	void init() {
+		deniedTokens = Caffeine.newBuilder()
+				.maximumSize(maxSize)
+				.expireAfter(new Expiry<String, Date>() {
+					@Override
+					public long expireAfterCreate(String tokenId, Date expiresAt, long currentTime) {
+						long millisLeft = expiresAt.getTime() - System.currentTimeMillis();
+						return TimeUnit.MILLISECONDS.toNanos(Math.max(0, millisLeft));
+					}
+
+					@Override
+					public long expireAfterUpdate(String tokenId, Date expiresAt, long currentTime, long currentDuration) {
+						return currentDuration;
+					}
+
+					@Override
+					public long expireAfterRead(String tokenId, Date expiresAt, long currentTime, long currentDuration) {
+						return currentDuration;
+					}
+				})
+				.build();
+		revokedUsers = Caffeine.newBuilder()
+				.maximumSize(maxSize)
+				.expireAfterWrite(userTtlHours, TimeUnit.HOURS)
+				.build();
+	}
+
+	public void revoke(Claims claims) {
+		if (claims.getId() != null) {
+			deniedTokens.put(claims.getId(), claims.getExpiration());
+		}
+	}
+
+	public void revokeUser(int userId) {
+		revokedUsers.put(userId, System.currentTimeMillis());
+	}
+
+	public boolean isRevoked(Claims claims) {
+		if (claims.getId() != null && deniedTokens.getIfPresent(claims.getId()) != null) {
+			return true;
+		}
+		Integer userId = claims.get(JwtService.USER_ID_CLAIM, Integer.class);
+		if (userId == null) {
+			return false;
+		}
+		Long revokedAt = revokedUsers.getIfPresent(userId);
+		return revokedAt != null && claims.getIssuedAt() != null && claims.getIssuedAt().getTime() < revokedAt;
+	}
+}
@@ -8,7 +8,6 @@ import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 
-import com.vipertips.timetable.filter.JwtAuthenticationFilter;
 import com.vipertips.timetable.repository.UserRepository;
 
 
@@ -17,11 +16,11 @@ public class UserDetailsImpl implements UserDetailsService {
 	@Autowired
 	private UserRepository userRepository;
 	
-	 private static final Logger logger = LoggerFactory.getLogger(JwtAuthenticationFilter.class);
+	 private static final Logger logger = LoggerFactory.getLogger(UserDetailsImpl.class);
 
 	@Override
 	public UserDetails loadUserByUsername(String email) throws UsernameNotFoundException {
-		logger.info("Trying to find user by: {} ",email);
+		logger.debug("Trying to find user by: {} ",email);
 		return userRepository.findByEmail(email)
 	            .orElseThrow(() -> {
 	               
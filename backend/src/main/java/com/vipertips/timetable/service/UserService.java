@@ -9,6 +9,7 @@ import java.util.stream.Collectors;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import com.vipertips.timetable.dto.UserDto;
 import com.vipertips.timetable.model.User;
@@ -19,6 +20,15 @@ public class UserService {
 	@Autowired
 	private UserRepository userRepository;
 
+	@Autowired
+	private PrincipalCache principalCache;
+
+	@Autowired
+	private TokenDenyList tokenDenyList;
+
+	@Autowired
+	private ResourceVersions resourceVersions;
+
 	public User findByEmail(String email) {
 		return userRepository.findByEmail(email).orElseThrow();
 	}
@@ -42,6 +52,8 @@ public class UserService {
 	   
 
 	    userRepository.save(existingUser);
+	    principalCache.evictByUserId(userId);
+	    resourceVersions.bump(ResourceVersions.Kind.PROFILE, userId);
 
 	    return UserDto.builder()
 	            .userId(existingUser.getUserId())
@@ -54,6 +66,7 @@ public class UserService {
 	}
 
 
+	@Transactional(readOnly = true)
 	public UserDto getUserById(int id) {
 		User user = userRepository.findById(id)
 				.orElseThrow(() -> new RuntimeException("User not found with ID: " + id));
@@ -76,8 +89,11 @@ public class UserService {
 			throw new RuntimeException("User not found with ID: " + id);
 		}
 		userRepository.deleteById(id);
+		principalCache.evictByUserId(id);
+		tokenDenyList.revokeUser(id);
 	}
 
+	@Transactional(readOnly = true)
 	public UserDto getUserByUsername(String email) {
 		User user = userRepository.findByEmail(email)
 				.orElseThrow(() -> new RuntimeException("User not found for username " + email));
@@ -0,0 +1,49 @@
+package com.vipertips.timetable.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+class EmailTemplateTests {
+
+	@Test
+	void templateWithoutPlaceholdersIsCopied() {
+		assertThat(EmailTemplate.compile("<p>Hello</p>").render(Map.of("name", "Ann"))).isEqualTo("<p>Hello</p>");
+		assertThat(EmailTemplate.compile("").render(Map.of())).isEmpty();
+	}
+
+	@Test
+	void placeholdersAreReplacedBetweenLiterals() {
+		EmailTemplate template = EmailTemplate.compile("<h1>${title}</h1><p>Dear ${name}, see you at ${time}.</p>");
+
+		assertThat(template.render(Map.of("title", "Reminder", "name", "Ann", "time", "09:00")))
+				.isEqualTo("<h1>Reminder</h1><p>Dear Ann, see you at 09:00.</p>");
+	}
+
+	@Test
+	void missingValueLeavesThePlaceholderInPlace() {
+		EmailTemplate template = EmailTemplate.compile("Dear ${name}, ${unknown} ends");
+
+		assertThat(template.render(Map.of("name", "Ann"))).isEqualTo("Dear Ann, ${unknown} ends");
+	}
+
+	@Test
+	void adjacentPlaceholdersAndPlaceholdersAtTheEdges() {
+		EmailTemplate template = EmailTemplate.compile("${a}${b}-${c}");
+
+		assertThat(template.render(Map.of("a", "1", "b", "2", "c", "3"))).isEqualTo("12-3");
+	}
+
+	@Test
+	void unclosedPlaceholderIsLiteralText() {
+		assertThat(EmailTemplate.compile("Total: ${amount").render(Map.of("amount", "5"))).isEqualTo("Total: ${amount");
+	}
+
+	@Test
+	void valuesAreInsertedVerbatim() {
+		// a value that looks like a placeholder is not expanded again
+		assertThat(EmailTemplate.compile("${a}").render(Map.of("a", "${b}", "b", "x"))).isEqualTo("${b}");
+	}
+}
@@ -0,0 +1,263 @@
+package com.vipertips.timetable.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.vipertips.timetable.dto.LessonDto;
+import com.vipertips.timetable.dto.TimeSlotDto;
+import com.vipertips.timetable.model.LessonSeries;
+import com.vipertips.timetable.model.LessonSeries.Frequency;
+import com.vipertips.timetable.repository.LessonRepository;
+import com.vipertips.timetable.repository.LessonSeriesRepository;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class LessonConflictServiceTests {
+
+	private static final int TEACHER = 7;
+	private static final LocalDate MONDAY = LocalDate.of(2025, 6, 2);
+
+	@Mock
+	private LessonRepository lessonRepository;
+
+	@Mock
+	private LessonSeriesRepository lessonSeriesRepository;
+
+	private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+	@InjectMocks
+	private LessonConflictService conflicts;
+
+	private final List<LessonDto> stored = new ArrayList<>();
+	private final List<LessonSeries> series = new ArrayList<>();
+
+	@BeforeEach
+	void setUp() {
+		ReflectionTestUtils.setField(conflicts, "meterRegistry", meterRegistry);
+		ReflectionTestUtils.setField(conflicts, "enforce", true);
+		ReflectionTestUtils.setField(conflicts, "maxTeachers", 100L);
+		ReflectionTestUtils.setField(conflicts, "maxAgeMinutes", 60L);
+		conflicts.init();
+		when(lessonRepository.findAllDtosByTeacher(TEACHER)).thenReturn(stored);
+		when(lessonRepository.findDtosOverlapping(anyInt(), any(), any())).thenAnswer(invocation -> {
+			LocalDateTime start = invocation.getArgument(1);
+			LocalDateTime end = invocation.getArgument(2);
+			return stored.stream()
+					.filter(lesson -> lesson.getStartTime().isBefore(end) && lesson.getEndTime().isAfter(start))
+					.toList();
+		});
+		when(lessonSeriesRepository.findActiveForTeacher(anyInt(), any(), any())).thenReturn(series);
+	}
+
+	@Test
+	void backToBackLessonsAreFree() {
+		stored.add(lesson(1, 0, "09:00", "10:00"));
+
+		assertThatCode(() -> conflicts.checkFree(TEACHER, at(0, "10:00"), at(0, "11:00"), null)).doesNotThrowAnyException();
+		assertThatCode(() -> conflicts.checkFree(TEACHER, at(0, "08:00"), at(0, "09:00"), null)).doesNotThrowAnyException();
+	}
+
+	@Test
+	void overlappingLessonIsRejected() {
+		stored.add(lesson(1, 0, "09:00", "10:00"));
+
+		assertThatThrownBy(() -> conflicts.checkFree(TEACHER, at(0, "09:30"), at(0, "10:30"), null))
+				.isInstanceOf(RuntimeException.class)
+				.hasMessageContaining("Lesson 1");
+	}
+
+	@Test
+	void editedLessonDoesNotConflictWithItself() {
+		stored.add(lesson(1, 0, "09:00", "10:00"));
+
+		assertThatCode(() -> conflicts.checkFree(TEACHER, at(0, "09:15"), at(0, "10:15"), 1)).doesNotThrowAnyException();
+	}
+
+	@Test
+	void nothingIsCheckedWhenNotEnforced() {
+		ReflectionTestUtils.setField(conflicts, "enforce", false);
+		stored.add(lesson(1, 0, "09:00", "10:00"));
+
+		assertThatCode(() -> conflicts.checkFree(TEACHER, at(0, "09:00"), at(0, "10:00"), null)).doesNotThrowAnyException();
+	}
+
+	@Test
+	void longLessonThatStartedEarlierIsFound() {
+		stored.add(lesson(1, 0, "07:00", "15:00"));
+		stored.add(lesson(2, 0, "08:00", "08:45"));
+		stored.add(lesson(3, 0, "10:00", "10:45"));
+
+		assertThat(ids(conflicts.findConflicts(TEACHER, at(0, "13:00"), at(0, "14:00"), null))).containsExactly(1);
+	}
+
+	@Test
+	void indexFollowsSavesAndDeletes() {
+		stored.add(lesson(1, 0, "09:00", "10:00"));
+		conflicts.findConflicts(TEACHER, at(0, "09:00"), at(0, "10:00"), null);
+
+		conflicts.onSaved(TEACHER, lesson(2, 0, "11:00", "12:00"));
+		conflicts.onDeleted(TEACHER, 1);
+
+		assertThat(conflicts.findConflicts(TEACHER, at(0, "09:00"), at(0, "10:00"), null)).isEmpty();
+		assertThat(ids(conflicts.findConflicts(TEACHER, at(0, "11:30"), at(0, "12:30"), null))).containsExactly(2);
+		verify(lessonRepository, times(1)).findAllDtosByTeacher(TEACHER);
+	}
+
+	@Test
+	void lessonWrittenElsewhereIsCaughtAndDropsTheIndex() {
+		conflicts.findConflicts(TEACHER, at(0, "09:00"), at(0, "10:00"), null);
+		// stored by another instance, so this one's index never heard of it
+		stored.add(lesson(1, 0, "09:00", "10:00"));
+
+		assertThatThrownBy(() -> conflicts.checkFree(TEACHER, at(0, "09:30"), at(0, "10:30"), null))
+				.hasMessageContaining("Lesson 1");
+		assertThat(ids(conflicts.findConflicts(TEACHER, at(0, "09:00"), at(0, "10:00"), null))).containsExactly(1);
+		verify(lessonRepository, times(2)).findAllDtosByTeacher(TEACHER);
+	}
+
+	@Test
+	void unstoredSeriesOccurrenceConflicts() {
+		series.add(weekly(10, at(0, "09:00"), at(0, "10:00")));
+
+		List<LessonDto> found = conflicts.findConflicts(TEACHER, at(7, "09:30"), at(7, "09:45"), null);
+
+		assertThat(found).singleElement().satisfies(occurrence -> {
+			assertThat(occurrence.getSeriesId()).isEqualTo(10);
+			assertThat(occurrence.getStartTime()).isEqualTo(at(7, "09:00"));
+		});
+	}
+
+	@Test
+	void storedSeriesOccurrenceIsNotCountedTwice() {
+		series.add(weekly(10, at(0, "09:00"), at(0, "10:00")));
+		stored.add(new LessonDto(5, "Moved", null, at(7, "09:00"), at(7, "10:00"), 10, at(7, "09:00")));
+
+		assertThat(ids(conflicts.findConflicts(TEACHER, at(7, "09:00"), at(7, "10:00"), null))).containsExactly(5);
+	}
+
+	@Test
+	void seriesOccurrenceOverlappingALessonIsRejected() {
+		stored.add(lesson(1, 9, "09:30", "10:30"));
+		LessonSeries daily = weekly(0, at(0, "09:00"), at(0, "10:00"));
+		daily.setFrequency(Frequency.DAILY);
+
+		assertThatThrownBy(() -> conflicts.checkSeriesFree(TEACHER, daily, at(0, "00:00"), at(14, "00:00")))
+				.isInstanceOf(RuntimeException.class)
+				.hasMessageContaining(at(9, "09:00").toString());
+		assertThatCode(() -> conflicts.checkSeriesFree(TEACHER, daily, at(0, "00:00"), at(9, "00:00")))
+				.doesNotThrowAnyException();
+	}
+
+	@Test
+	void seriesDoesNotConflictWithItsOwnOccurrences() {
+		LessonSeries edited = weekly(10, at(0, "09:00"), at(0, "10:00"));
+		series.add(weekly(10, at(0, "09:15"), at(0, "10:15")));
+		stored.add(new LessonDto(5, "Series 10", null, at(7, "09:15"), at(7, "10:15"), 10, at(7, "09:15")));
+
+		assertThatCode(() -> conflicts.checkSeriesFree(TEACHER, edited, at(0, "00:00"), at(14, "00:00")))
+				.doesNotThrowAnyException();
+	}
+
+	@Test
+	void seriesOccurrenceOverlappingAnotherSeriesIsRejected() {
+		series.add(weekly(10, at(0, "09:15"), at(0, "10:15")));
+
+		assertThatThrownBy(() -> conflicts.checkSeriesFree(TEACHER, weekly(0, at(0, "09:00"), at(0, "10:00")),
+				at(0, "00:00"), at(7, "00:00"))).hasMessageContaining("Series 10");
+	}
+
+	@Test
+	void seriesIsCheckedAcrossTheWholeWindowWithOneSeriesQuery() {
+		stored.add(lesson(1, 60, "09:30", "10:30"));
+		LessonSeries daily = weekly(0, at(0, "09:00"), at(0, "10:00"));
+		daily.setFrequency(Frequency.DAILY);
+
+		assertThat(conflicts.findSeriesClashes(TEACHER, daily, Recurrences.occurrences(daily, at(0, "00:00"), at(100, "00:00"))))
+				.containsOnlyKeys(at(60, "09:00"));
+		verify(lessonSeriesRepository, times(1)).findActiveForTeacher(anyInt(), any(), any());
+	}
+
+	@Test
+	void freeSlotsFillTheGapsBetweenLessons() {
+		stored.add(lesson(1, 0, "09:00", "10:00"));
+		stored.add(lesson(2, 0, "10:15", "11:00"));
+		stored.add(lesson(3, 0, "13:00", "17:30"));
+
+		List<TimeSlotDto> monday = conflicts.findFreeSlots(TEACHER, MONDAY.plusDays(2), LocalTime.of(8, 0),
+				LocalTime.of(17, 0), 30).stream().filter(slot -> slot.getStart().toLocalDate().equals(MONDAY)).toList();
+
+		// the 15 minutes between the first two lessons are too short, the last lesson runs past the day
+		assertThat(monday).containsExactly(
+				new TimeSlotDto(at(0, "08:00"), at(0, "09:00")),
+				new TimeSlotDto(at(0, "11:00"), at(0, "13:00")));
+	}
+
+	@Test
+	void freeSlotsCoverEveryDayOfTheWeek() {
+		List<TimeSlotDto> slots = conflicts.findFreeSlots(TEACHER, MONDAY.plusDays(6), LocalTime.of(8, 0),
+				LocalTime.of(16, 0), 60);
+
+		assertThat(slots).hasSize(7);
+		assertThat(slots.get(0)).isEqualTo(new TimeSlotDto(at(0, "08:00"), at(0, "16:00")));
+		assertThat(slots.get(6)).isEqualTo(new TimeSlotDto(at(6, "08:00"), at(6, "16:00")));
+	}
+
+	@Test
+	void overlappingLessonsDoNotMoveTheCursorBack() {
+		stored.add(lesson(1, 0, "09:00", "12:00"));
+		stored.add(lesson(2, 0, "10:00", "11:00"));
+
+		List<TimeSlotDto> monday = conflicts.findFreeSlots(TEACHER, MONDAY, LocalTime.of(9, 0), LocalTime.of(13, 0), 30)
+				.stream().filter(slot -> slot.getStart().toLocalDate().equals(MONDAY)).toList();
+
+		assertThat(monday).containsExactly(new TimeSlotDto(at(0, "12:00"), at(0, "13:00")));
+	}
+
+	private static LessonDto lesson(int id, int day, String start, String end) {
+		return new LessonDto(id, "Lesson " + id, null, at(day, start), at(day, end));
+	}
+
+	private static LessonSeries weekly(int id, LocalDateTime start, LocalDateTime end) {
+		return LessonSeries.builder()
+				.seriesId(id)
+				.title("Series " + id)
+				.startTime(start)
+				.endTime(end)
+				.frequency(Frequency.WEEKLY)
+				.intervalCount(1)
+				.build();
+	}
+
+	private static LocalDateTime at(int day, String time) {
+		return MONDAY.plusDays(day).atTime(LocalTime.parse(time));
+	}
+
+	private static List<Integer> ids(List<LessonDto> lessons) {
+		return lessons.stream().map(LessonDto::getLessonId).toList();
+	}
+}
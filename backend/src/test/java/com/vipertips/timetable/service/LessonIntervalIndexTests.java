@@ -0,0 +1,132 @@
+package com.vipertips.timetable.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.vipertips.timetable.dto.LessonDto;
+
+class LessonIntervalIndexTests {
+
+	private static final LocalDateTime MONDAY = LocalDateTime.of(2025, 6, 2, 0, 0);
+
+	private final LessonIntervalIndex index = new LessonIntervalIndex();
+
+	@Test
+	void lessonsTouchingTheEdgesDoNotOverlap() {
+		index.put(lesson(1, 9, 0, 10, 0));
+		index.put(lesson(2, 11, 0, 12, 0));
+
+		assertThat(index.overlapping(at(10, 0), at(11, 0), null)).isEmpty();
+	}
+
+	@Test
+	void overlapsByOneMinuteAtEitherEdge() {
+		index.put(lesson(1, 9, 0, 10, 0));
+		index.put(lesson(2, 11, 0, 12, 0));
+
+		assertThat(ids(index.overlapping(at(9, 59), at(11, 0), null))).containsExactly(1);
+		assertThat(ids(index.overlapping(at(10, 0), at(11, 1), null))).containsExactly(2);
+	}
+
+	@Test
+	void findsLessonsContainingOrContainedInTheWindow() {
+		index.put(lesson(1, 8, 0, 12, 0));
+		index.put(lesson(2, 9, 30, 9, 45));
+
+		assertThat(ids(index.overlapping(at(9, 0), at(10, 0), null))).containsExactly(1, 2);
+	}
+
+	@Test
+	void scansBackFarEnoughForTheLongestLesson() {
+		// starts long before the window, a short lesson in between must not end the scan
+		index.put(lesson(1, 6, 0, 14, 0));
+		index.put(lesson(2, 8, 0, 8, 30));
+		index.put(lesson(3, 10, 0, 10, 30));
+
+		assertThat(ids(index.overlapping(at(12, 0), at(13, 0), null))).containsExactly(1);
+	}
+
+	@Test
+	void scanBoundShrinksWhenTheLongestLessonGoes() {
+		index.put(lesson(1, 6, 0, 14, 0));
+		index.put(lesson(2, 9, 0, 11, 0));
+		index.put(lesson(3, 12, 0, 14, 0));
+
+		index.remove(1);
+		assertThat(index.longest()).isEqualTo(Duration.ofHours(2));
+
+		// moved and shortened, the other two-hour lesson still holds the bound
+		index.put(lesson(2, 9, 0, 9, 30));
+		assertThat(index.longest()).isEqualTo(Duration.ofHours(2));
+
+		index.remove(3);
+		assertThat(index.longest()).isEqualTo(Duration.ofMinutes(30));
+		index.remove(2);
+		assertThat(index.longest()).isEqualTo(Duration.ZERO);
+	}
+
+	@Test
+	void longestLessonFromAnEarlierDayStillCounts() {
+		index.put(new LessonDto(1, "Trip", null, MONDAY.withHour(8), MONDAY.plusDays(2).withHour(18)));
+		index.put(lesson(2, 9, 0, 10, 0));
+
+		assertThat(ids(index.overlapping(MONDAY.plusDays(1).withHour(9), MONDAY.plusDays(1).withHour(10), null)))
+				.containsExactly(1);
+	}
+
+	@Test
+	void excludesTheLessonBeingEdited() {
+		index.put(lesson(1, 9, 0, 10, 0));
+
+		assertThat(index.overlapping(at(9, 0), at(10, 0), 1)).isEmpty();
+	}
+
+	@Test
+	void movingALessonReplacesItsOldSlot() {
+		index.put(lesson(1, 9, 0, 10, 0));
+		index.put(lesson(1, 14, 0, 15, 0));
+
+		assertThat(index.overlapping(at(9, 0), at(10, 0), null)).isEmpty();
+		assertThat(ids(index.overlapping(at(14, 30), at(14, 45), null))).containsExactly(1);
+	}
+
+	@Test
+	void removedLessonsNoLongerOverlap() {
+		index.put(lesson(1, 9, 0, 10, 0));
+		index.remove(1);
+
+		assertThat(index.overlapping(at(9, 0), at(10, 0), null)).isEmpty();
+	}
+
+	@Test
+	void lessonsWithoutTimesAreIgnored() {
+		index.put(new LessonDto(1, "Unscheduled", null, null, null));
+
+		assertThat(index.overlapping(at(0, 0), at(23, 59), null)).isEmpty();
+	}
+
+	@Test
+	void sameStartTimeKeepsBothLessons() {
+		index.put(lesson(1, 9, 0, 10, 0));
+		index.put(lesson(2, 9, 0, 9, 30));
+
+		assertThat(ids(index.overlapping(at(9, 15), at(9, 20), null))).containsExactly(1, 2);
+	}
+
+	static LessonDto lesson(int id, int startHour, int startMinute, int endHour, int endMinute) {
+		return new LessonDto(id, "Lesson " + id, null, at(startHour, startMinute), at(endHour, endMinute));
+	}
+
+	static LocalDateTime at(int hour, int minute) {
+		return MONDAY.withHour(hour).withMinute(minute);
+	}
+
+	static List<Integer> ids(List<LessonDto> lessons) {
+		return lessons.stream().map(LessonDto::getLessonId).toList();
+	}
+}
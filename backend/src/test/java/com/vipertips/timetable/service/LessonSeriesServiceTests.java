@@ -0,0 +1,290 @@
+package com.vipertips.timetable.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.vipertips.timetable.dto.LessonDto;
+import com.vipertips.timetable.dto.LessonSeriesDto;
+import com.vipertips.timetable.model.Lesson;
+import com.vipertips.timetable.model.LessonSeries;
+import com.vipertips.timetable.model.LessonSeries.Frequency;
+import com.vipertips.timetable.model.User;
+import com.vipertips.timetable.repository.LessonRepository;
+import com.vipertips.timetable.repository.LessonSeriesRepository;
+import com.vipertips.timetable.repository.UserRepository;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class LessonSeriesServiceTests {
+
+	@Mock
+	private LessonSeriesRepository lessonSeriesRepository;
+
+	@Mock
+	private LessonRepository lessonRepository;
+
+	@Mock
+	private UserRepository userRepository;
+
+	@Mock
+	private ReminderEngine reminderEngine;
+
+	@Mock
+	private LessonWeekCache lessonWeekCache;
+
+	@Mock
+	private ResourceVersions resourceVersions;
+
+	@Mock
+	private ApplicationEventPublisher eventPublisher;
+
+	@Mock
+	private LessonConflictService lessonConflictService;
+
+	@Mock
+	private TransactionTemplate transactionTemplate;
+
+	@InjectMocks
+	private LessonSeriesService lessonSeriesService;
+
+	private final User teacher = User.builder().userId(3).build();
+	// daily, first occurrence in an hour; with a 72h horizon three occurrences are due for storing
+	private final LocalDateTime first = LocalDateTime.now().plusHours(1).truncatedTo(ChronoUnit.MINUTES);
+	private LessonSeries series;
+
+	@BeforeEach
+	void setUp() {
+		ReflectionTestUtils.setField(lessonSeriesService, "horizonHours", 72);
+		ReflectionTestUtils.setField(lessonSeriesService, "leadMinutes", 0);
+		ReflectionTestUtils.setField(lessonSeriesService, "bookingWindowWeeks", 104);
+		series = LessonSeries.builder()
+				.seriesId(11)
+				.title("Maths")
+				.startTime(first)
+				.endTime(first.plusMinutes(45))
+				.frequency(Frequency.DAILY)
+				.intervalCount(1)
+				.user(teacher)
+				.build();
+		when(lessonSeriesRepository.findActive(any(), any())).thenReturn(List.of(series));
+		when(lessonRepository.save(any(Lesson.class))).thenAnswer(invocation -> invocation.getArgument(0));
+		when(lessonConflictService.lockFor(anyInt())).thenReturn(new ReentrantLock());
+		when(transactionTemplate.execute(any())).thenAnswer(
+				invocation -> invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+		when(userRepository.findById(3)).thenReturn(Optional.of(teacher));
+		when(lessonSeriesRepository.save(any(LessonSeries.class))).thenAnswer(invocation -> invocation.getArgument(0));
+	}
+
+	@Test
+	void storesEveryOccurrenceInTheHorizon() {
+		when(lessonRepository.findStoredOccurrences(eq(series), any(), any())).thenReturn(List.of());
+
+		lessonSeriesService.materializeUpcoming();
+
+		assertThat(savedStarts()).containsExactly(first, first.plusDays(1), first.plusDays(2));
+		verify(lessonConflictService).invalidateTeacher(3);
+		verify(reminderEngine, times(3)).schedule(anyInt(), any());
+	}
+
+	@Test
+	void skipsOccurrencesThatAreAlreadyStored() {
+		when(lessonRepository.findStoredOccurrences(eq(series), any(), any())).thenReturn(List.of(first.plusDays(1)));
+
+		lessonSeriesService.materializeUpcoming();
+
+		assertThat(savedStarts()).containsExactly(first, first.plusDays(2));
+	}
+
+	@Test
+	void storedOccurrencesKeepTheirOriginalStartAndDuration() {
+		when(lessonRepository.findStoredOccurrences(eq(series), any(), any())).thenReturn(List.of());
+
+		lessonSeriesService.materializeUpcoming();
+
+		ArgumentCaptor<Lesson> saved = ArgumentCaptor.forClass(Lesson.class);
+		verify(lessonRepository, times(3)).save(saved.capture());
+		assertThat(saved.getAllValues()).allSatisfy(lesson -> {
+			assertThat(lesson.getSeries()).isSameAs(series);
+			assertThat(lesson.getOriginalStart()).isEqualTo(lesson.getStartTime());
+			assertThat(lesson.getEndTime()).isEqualTo(lesson.getStartTime().plusMinutes(45));
+			assertThat(lesson.getUser()).isSameAs(teacher);
+			assertThat(lesson.getStatus()).isEqualTo(Lesson.Status.PENDING);
+		});
+	}
+
+	@Test
+	void occurrenceStoredConcurrentlyByAnotherNodeIsSkipped() {
+		when(lessonRepository.findStoredOccurrences(eq(series), any(), any())).thenReturn(List.of());
+		when(lessonRepository.save(any(Lesson.class))).thenAnswer(invocation -> {
+			Lesson lesson = invocation.getArgument(0);
+			if (lesson.getStartTime().equals(first)) {
+				throw new DataIntegrityViolationException("uk_lessons_series_occurrence");
+			}
+			return lesson;
+		});
+
+		lessonSeriesService.materializeUpcoming();
+
+		verify(reminderEngine, times(2)).schedule(anyInt(), any());
+	}
+
+	@Test
+	void nothingChangesWhenEverythingIsStored() {
+		when(lessonRepository.findStoredOccurrences(eq(series), any(), any()))
+				.thenReturn(List.of(first, first.plusDays(1), first.plusDays(2)));
+
+		lessonSeriesService.materializeUpcoming();
+
+		verify(lessonRepository, never()).save(any(Lesson.class));
+		verify(lessonConflictService, never()).invalidateTeacher(anyInt());
+		verify(resourceVersions, never()).bump(any(), anyInt());
+	}
+
+	@Test
+	void newSeriesStoresItsOccurrencesAfterCommit() {
+		List<String> steps = new ArrayList<>();
+		doAnswer(invocation -> {
+			Object result = invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null);
+			steps.add("commit");
+			return result;
+		}).when(transactionTemplate).execute(any());
+		when(lessonRepository.findStoredOccurrences(any(), any(), any())).thenReturn(List.of());
+		when(lessonRepository.save(any(Lesson.class))).thenAnswer(invocation -> {
+			steps.add("occurrence");
+			return invocation.getArgument(0);
+		});
+
+		lessonSeriesService.createSeries(dailyMaths(), 3);
+
+		// each occurrence insert commits on its own, a clash with another node cannot undo the series
+		assertThat(steps).containsExactly("commit", "occurrence", "occurrence", "occurrence");
+	}
+
+	@Test
+	void deletedSeriesIsAnnouncedAfterCommitUnderTheTeachersLock() {
+		ReentrantLock lock = new ReentrantLock();
+		when(lessonConflictService.lockFor(3)).thenReturn(lock);
+		when(lessonSeriesRepository.findWithCancelledStarts(11)).thenReturn(Optional.of(series));
+		List<String> steps = new ArrayList<>();
+		doAnswer(invocation -> {
+			assertThat(lock.isHeldByCurrentThread()).isTrue();
+			invocation.<Consumer<TransactionStatus>>getArgument(0).accept(null);
+			steps.add("commit");
+			return null;
+		}).when(transactionTemplate).executeWithoutResult(any());
+		doAnswer(invocation -> steps.add("bump")).when(resourceVersions).bump(any(), anyInt());
+		doAnswer(invocation -> steps.add("event")).when(eventPublisher).publishEvent(any(Object.class));
+
+		lessonSeriesService.deleteSeries(11, 3);
+
+		assertThat(steps).containsExactly("commit", "bump", "event");
+		verify(lessonSeriesRepository).deleteById(11);
+		assertThat(lock.isLocked()).isFalse();
+	}
+
+	@Test
+	void failedCancellationChangesNothingElse() {
+		doAnswer(invocation -> {
+			invocation.<Consumer<TransactionStatus>>getArgument(0).accept(null);
+			return null;
+		}).when(transactionTemplate).executeWithoutResult(any());
+		when(lessonSeriesRepository.findWithCancelledStarts(11)).thenReturn(Optional.empty());
+
+		assertThatThrownBy(() -> lessonSeriesService.cancelOccurrence(11, first, 3)).hasMessage("Series not found");
+
+		verify(lessonWeekCache, never()).invalidateTeacher(anyInt());
+		verify(resourceVersions, never()).bump(any(), anyInt());
+		verify(eventPublisher, never()).publishEvent(any(Object.class));
+	}
+
+	@Test
+	void seriesDoubleBookingTheTeacherIsRejected() {
+		doThrow(new RuntimeException("Occurrence overlaps")).when(lessonConflictService)
+				.checkSeriesFree(eq(3), any(), any(), any());
+
+		assertThatThrownBy(() -> lessonSeriesService.createSeries(dailyMaths(), 3)).hasMessage("Occurrence overlaps");
+		verify(lessonSeriesRepository, never()).save(any(LessonSeries.class));
+		verify(lessonRepository, never()).save(any(Lesson.class));
+	}
+
+	@Test
+	void seriesIsCheckedAcrossTheBookingWindow() {
+		ArgumentCaptor<LocalDateTime> checkedTo = ArgumentCaptor.forClass(LocalDateTime.class);
+
+		lessonSeriesService.createSeries(dailyMaths(), 3);
+
+		verify(lessonConflictService).checkSeriesFree(eq(3), any(), any(), checkedTo.capture());
+		assertThat(checkedTo.getValue()).isAfter(LocalDateTime.now().plusWeeks(103));
+	}
+
+	@Test
+	void boundedSeriesMustEndInsideTheBookingWindow() {
+		LessonSeriesDto dto = dailyMaths();
+		dto.setUntil(first.toLocalDate().plusYears(3));
+
+		assertThatThrownBy(() -> lessonSeriesService.createSeries(dto, 3)).hasMessageContaining("must end within 104 weeks");
+		verify(lessonSeriesRepository, never()).save(any(LessonSeries.class));
+	}
+
+	@Test
+	void clashingOccurrenceIsNotStored() {
+		when(lessonRepository.findStoredOccurrences(eq(series), any(), any())).thenReturn(List.of());
+		when(lessonConflictService.isEnforced()).thenReturn(true);
+		when(lessonConflictService.findSeriesClashes(eq(3), eq(series), any())).thenReturn(Map.of(first.plusDays(1),
+				new LessonDto(9, "Booked later", null, first.plusDays(1), first.plusDays(1).plusHours(1))));
+
+		lessonSeriesService.materializeUpcoming();
+
+		assertThat(savedStarts()).containsExactly(first, first.plusDays(2));
+	}
+
+	private LessonSeriesDto dailyMaths() {
+		LessonSeriesDto dto = new LessonSeriesDto();
+		dto.setTitle("Maths");
+		dto.setStartTime(first);
+		dto.setEndTime(first.plusMinutes(45));
+		dto.setFrequency(Frequency.DAILY);
+		return dto;
+	}
+
+	private List<LocalDateTime> savedStarts() {
+		ArgumentCaptor<Lesson> saved = ArgumentCaptor.forClass(Lesson.class);
+		verify(lessonRepository, atLeastOnce()).save(saved.capture());
+		return saved.getAllValues().stream().map(Lesson::getOriginalStart).toList();
+	}
+}
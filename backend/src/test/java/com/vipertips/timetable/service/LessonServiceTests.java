@@ -0,0 +1,151 @@
+package com.vipertips.timetable.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Predicate;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.vipertips.timetable.dto.LessonRow;
+import com.vipertips.timetable.repository.LessonRepository;
+import com.vipertips.timetable.response.CursorPage;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class LessonServiceTests {
+
+	private static final int TEACHER = 7;
+	private static final LocalDateTime NINE = LocalDateTime.of(2025, 6, 2, 9, 0);
+
+	// newest first, ties broken by the higher id, like the repository queries
+	private static final Comparator<LessonRow> NEWEST_FIRST = Comparator.comparing(LessonRow::startTime)
+			.thenComparingInt(LessonRow::lessonId).reversed();
+
+	@Mock
+	private LessonRepository lessonRepository;
+
+	@InjectMocks
+	private LessonService lessonService;
+
+	private final List<LessonRow> stored = new ArrayList<>();
+
+	@BeforeEach
+	void setUp() {
+		ReflectionTestUtils.setField(lessonService, "meterRegistry", new SimpleMeterRegistry());
+		when(lessonRepository.findRowsByTeacherFirst(eq(TEACHER), any())).thenAnswer(
+				invocation -> slice(row -> true, invocation.getArgument(1)));
+		when(lessonRepository.findRowsByTeacherAfter(eq(TEACHER), any(), anyInt(), any())).thenAnswer(invocation -> {
+			LocalDateTime startTime = invocation.getArgument(1);
+			int lessonId = invocation.getArgument(2);
+			return slice(row -> row.startTime().isBefore(startTime)
+					|| (row.startTime().equals(startTime) && row.lessonId() < lessonId), invocation.getArgument(3));
+		});
+	}
+
+	@Test
+	void cursorCarriesTheLastRowsPosition() {
+		stored.add(row(4, NINE.plusDays(1)));
+		stored.add(row(3, NINE));
+
+		CursorPage<LessonRow> first = lessonService.getLessonsForTeacherAfter(TEACHER, null, 1);
+		lessonService.getLessonsForTeacherAfter(TEACHER, first.getNextCursor(), 1);
+
+		assertThat(first.isHasNext()).isTrue();
+		assertThat(decode(first.getNextCursor())).isEqualTo(NINE.plusDays(1) + "|4");
+		verify(lessonRepository).findRowsByTeacherAfter(eq(TEACHER), eq(NINE.plusDays(1)), eq(4), any());
+	}
+
+	@Test
+	void pagingVisitsLessonsSharingAStartTimeExactlyOnce() {
+		// five lessons at nine, two either side, pages of two split the tie group
+		for (int id = 1; id <= 5; id++) {
+			stored.add(row(id, NINE));
+		}
+		stored.add(row(6, NINE.plusHours(1)));
+		stored.add(row(7, NINE.minusHours(1)));
+
+		List<Integer> seen = new ArrayList<>();
+		String cursor = null;
+		int pages = 0;
+		do {
+			CursorPage<LessonRow> page = lessonService.getLessonsForTeacherAfter(TEACHER, cursor, 2);
+			page.getContent().forEach(row -> seen.add(row.lessonId()));
+			cursor = page.getNextCursor();
+			pages++;
+		} while (cursor != null);
+
+		assertThat(seen).containsExactly(6, 5, 4, 3, 2, 1, 7);
+		assertThat(pages).isEqualTo(4);
+	}
+
+	@Test
+	void lastPageHasNoCursor() {
+		stored.add(row(1, NINE));
+		stored.add(row(2, NINE));
+
+		CursorPage<LessonRow> page = lessonService.getLessonsForTeacherAfter(TEACHER, "", 2);
+
+		assertThat(page.getContent()).hasSize(2);
+		assertThat(page.isHasNext()).isFalse();
+		assertThat(page.getNextCursor()).isNull();
+	}
+
+	@ParameterizedTest
+	@ValueSource(strings = { "not base64!", "MjAyNS0wNi0wMlQwOTowMA", "bm90LWEtZGF0ZXw1", "MjAyNS0wNi0wMlQwOTowMHxhYmM",
+			"MjAyNS0wNi0wMlQwOTowMHwxfDI" })
+	void garbledCursorIsRejectedAsInvalid(String cursor) {
+		// no separator, "not-a-date|5", "2025-06-02T09:00|abc", "2025-06-02T09:00|1|2"
+		assertThatThrownBy(() -> lessonService.getLessonsForTeacherAfter(TEACHER, cursor, 10))
+				.isExactlyInstanceOf(RuntimeException.class)
+				.hasMessage("Invalid cursor");
+	}
+
+	@Test
+	void tamperedCursorThatStillDecodesOnlyMovesTheStartingPoint() {
+		stored.add(row(1, NINE));
+		stored.add(row(2, NINE.plusDays(1)));
+		String forged = Base64.getUrlEncoder().withoutPadding()
+				.encodeToString((NINE.plusHours(1) + "|999").getBytes(StandardCharsets.UTF_8));
+
+		CursorPage<LessonRow> page = lessonService.getLessonsForTeacherAfter(TEACHER, forged, 10);
+
+		assertThat(page.getContent()).extracting(LessonRow::lessonId).containsExactly(1);
+	}
+
+	private List<LessonRow> slice(Predicate<LessonRow> after, Pageable limit) {
+		return stored.stream().filter(after).sorted(NEWEST_FIRST).limit(limit.getPageSize()).toList();
+	}
+
+	private static LessonRow row(int id, LocalDateTime start) {
+		return new LessonRow(id, "Lesson " + id, null, start, start.plusMinutes(45));
+	}
+
+	private static String decode(String cursor) {
+		return new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+	}
+}
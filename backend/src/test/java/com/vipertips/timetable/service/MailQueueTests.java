@@ -0,0 +1,171 @@
+package com.vipertips.timetable.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.vipertips.timetable.service.MailQueue.DeadLetter;
+import com.vipertips.timetable.service.MailQueue.OutboundEmail;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.mail.Session;
+import jakarta.mail.internet.MimeMessage;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class MailQueueTests {
+
+	private static final long BACKOFF_MS = 50;
+
+	@Mock
+	private JavaMailSender javaMailSender;
+
+	@Mock
+	private LogThrottle logThrottle;
+
+	private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+	@InjectMocks
+	private MailQueue mailQueue;
+
+	private final List<Long> sendTimes = new CopyOnWriteArrayList<>();
+
+	@BeforeEach
+	void setUp() {
+		ReflectionTestUtils.setField(mailQueue, "meterRegistry", meterRegistry);
+		ReflectionTestUtils.setField(mailQueue, "capacity", 10);
+		ReflectionTestUtils.setField(mailQueue, "workers", 1);
+		ReflectionTestUtils.setField(mailQueue, "virtualThreads", true);
+		ReflectionTestUtils.setField(mailQueue, "maxAttempts", 3);
+		ReflectionTestUtils.setField(mailQueue, "initialBackoffMs", BACKOFF_MS);
+		ReflectionTestUtils.setField(mailQueue, "maxBackoffMs", 60_000L);
+		ReflectionTestUtils.setField(mailQueue, "deadLetterSize", 10);
+		ReflectionTestUtils.setField(mailQueue, "shutdownTimeoutMs", 200L);
+		when(javaMailSender.createMimeMessage()).thenAnswer(invocation -> new MimeMessage((Session) null));
+		when(logThrottle.permit(anyString())).thenReturn(0L);
+		mailQueue.start();
+	}
+
+	@AfterEach
+	void tearDown() throws InterruptedException {
+		mailQueue.stop();
+	}
+
+	@Test
+	void failingMessageIsRetriedWithGrowingBackoffThenDeadLettered() throws InterruptedException {
+		failEverySend();
+
+		mailQueue.enqueue(email("a@example.com"));
+
+		waitFor(() -> !mailQueue.getDeadLetters().isEmpty());
+		verify(javaMailSender, times(3)).send(any(MimeMessage.class));
+		DeadLetter letter = mailQueue.getDeadLetters().get(0);
+		assertThat(letter.reason()).isEqualTo("SMTP down");
+		assertThat(letter.email().attempt()).isEqualTo(2);
+		// backoff doubles: initial, then twice that
+		assertThat(millisBetween(0, 1)).isGreaterThanOrEqualTo(BACKOFF_MS);
+		assertThat(millisBetween(1, 2)).isGreaterThanOrEqualTo(2 * BACKOFF_MS);
+		assertThat(meterRegistry.counter("email.retries").count()).isEqualTo(2);
+		assertThat(meterRegistry.counter("email.dead.lettered").count()).isEqualTo(1);
+	}
+
+	@Test
+	void messageDeliveredOnRetryIsNotDeadLettered() throws InterruptedException {
+		doAnswer(invocation -> {
+			sendTimes.add(System.nanoTime());
+			if (sendTimes.size() == 1) {
+				throw new MailSendException("SMTP down");
+			}
+			return null;
+		}).when(javaMailSender).send(any(MimeMessage.class));
+
+		mailQueue.enqueue(email("a@example.com"));
+
+		waitFor(() -> sendTimes.size() == 2);
+		waitFor(() -> meterRegistry.timer("email.delivery", "outcome", "success").count() == 1);
+		assertThat(mailQueue.getDeadLetters()).isEmpty();
+	}
+
+	@Test
+	void pendingRetryIsDeadLetteredOnShutdown() throws InterruptedException {
+		failEverySend();
+		ReflectionTestUtils.setField(mailQueue, "initialBackoffMs", 60_000L);
+
+		mailQueue.enqueue(email("a@example.com"));
+		waitFor(() -> meterRegistry.counter("email.retries").count() == 1);
+		mailQueue.stop();
+
+		assertThat(mailQueue.getDeadLetters()).extracting(DeadLetter::reason).containsExactly("shut down before retry");
+	}
+
+	@Test
+	void queuedMessagesAreDeadLetteredWhenWorkersDoNotFinish() throws InterruptedException {
+		CountDownLatch sending = new CountDownLatch(1);
+		doAnswer(invocation -> {
+			sending.countDown();
+			// an SMTP server that never answers
+			Thread.sleep(60_000);
+			return null;
+		}).when(javaMailSender).send(any(MimeMessage.class));
+
+		mailQueue.enqueue(email("stuck@example.com"));
+		assertThat(sending.await(5, TimeUnit.SECONDS)).isTrue();
+		mailQueue.enqueue(email("b@example.com"));
+		mailQueue.enqueue(email("c@example.com"));
+		mailQueue.stop();
+
+		assertThat(mailQueue.getDeadLetters())
+				.filteredOn(letter -> "shut down before delivery".equals(letter.reason()))
+				.extracting(letter -> letter.email().to())
+				.containsExactly("b@example.com", "c@example.com");
+		assertThat(mailQueue.depth()).isZero();
+		assertThat(mailQueue.enqueue(email("late@example.com"))).isFalse();
+	}
+
+	private void failEverySend() {
+		doAnswer(invocation -> {
+			sendTimes.add(System.nanoTime());
+			throw new MailSendException("SMTP down");
+		}).when(javaMailSender).send(any(MimeMessage.class));
+	}
+
+	private long millisBetween(int from, int to) {
+		return TimeUnit.NANOSECONDS.toMillis(sendTimes.get(to) - sendTimes.get(from));
+	}
+
+	private static OutboundEmail email(String to) {
+		return new OutboundEmail("noreply@example.com", "Timetable", to, "Reminder", "<p>Hi</p>", 0);
+	}
+
+	private static void waitFor(BooleanSupplier condition) throws InterruptedException {
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+		while (!condition.getAsBoolean()) {
+			assertThat(System.nanoTime()).as("condition not met in time").isLessThan(deadline);
+			Thread.sleep(10);
+		}
+	}
+}
@@ -0,0 +1,78 @@
+package com.vipertips.timetable.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Optional;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.vipertips.timetable.model.User;
+import com.vipertips.timetable.model.User.Role;
+import com.vipertips.timetable.repository.UserRepository;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class PrincipalCacheTests {
+
+	@Mock
+	private UserRepository userRepository;
+
+	@InjectMocks
+	private PrincipalCache principalCache;
+
+	@BeforeEach
+	void setUp() {
+		ReflectionTestUtils.setField(principalCache, "meterRegistry", new SimpleMeterRegistry());
+		ReflectionTestUtils.setField(principalCache, "maxSize", 100L);
+		ReflectionTestUtils.setField(principalCache, "ttlSeconds", 300L);
+		principalCache.init();
+		stubUser(1, "ann@example.com");
+		stubUser(1, "ann.old@example.com");
+		stubUser(2, "bob@example.com");
+	}
+
+	@Test
+	void evictingAUserDropsEveryEmailCachedForIt() {
+		principalCache.getByEmail("ann@example.com");
+		principalCache.getByEmail("ann.old@example.com");
+		principalCache.getByEmail("bob@example.com");
+
+		principalCache.evictByUserId(1);
+		principalCache.getByEmail("ann@example.com");
+		principalCache.getByEmail("ann.old@example.com");
+		principalCache.getByEmail("bob@example.com");
+
+		verify(userRepository, times(2)).findByEmail("ann@example.com");
+		verify(userRepository, times(2)).findByEmail("ann.old@example.com");
+		verify(userRepository, times(1)).findByEmail("bob@example.com");
+	}
+
+	@Test
+	void indexForgetsUsersWithNothingCached() {
+		principalCache.getByEmail("ann@example.com");
+		principalCache.getByEmail("bob@example.com");
+
+		principalCache.evict("ann@example.com");
+		principalCache.evictByUserId(2);
+		principalCache.evictByUserId(3);
+
+		assertThat(principalCache.indexedUsers()).isZero();
+	}
+
+	private void stubUser(int id, String email) {
+		when(userRepository.findByEmail(email)).thenReturn(Optional.of(User.builder().userId(id).email(email).role(Role.TEACHER).build()));
+	}
+}
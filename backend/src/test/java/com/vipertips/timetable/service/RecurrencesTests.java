@@ -0,0 +1,178 @@
+package com.vipertips.timetable.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+import com.vipertips.timetable.model.LessonSeries;
+import com.vipertips.timetable.model.LessonSeries.Frequency;
+
+class RecurrencesTests {
+
+	// a Wednesday
+	private static final LocalDateTime FIRST = LocalDateTime.of(2025, 6, 4, 9, 0);
+
+	@Test
+	void dailyRepeatsEveryDay() {
+		LessonSeries series = series(Frequency.DAILY, 1).build();
+
+		assertThat(Recurrences.occurrences(series, FIRST, FIRST.plusDays(3)))
+				.containsExactly(FIRST, FIRST.plusDays(1), FIRST.plusDays(2));
+	}
+
+	@Test
+	void dailyIntervalSkipsDays() {
+		LessonSeries series = series(Frequency.DAILY, 3).build();
+
+		assertThat(Recurrences.occurrences(series, FIRST, FIRST.plusDays(10)))
+				.containsExactly(FIRST, FIRST.plusDays(3), FIRST.plusDays(6), FIRST.plusDays(9));
+	}
+
+	@Test
+	void nothingBeforeTheFirstOccurrence() {
+		LessonSeries series = series(Frequency.DAILY, 1).build();
+
+		assertThat(Recurrences.occurrences(series, FIRST.minusDays(5), FIRST.plusDays(1))).containsExactly(FIRST);
+	}
+
+	@Test
+	void windowIsHalfOpen() {
+		LessonSeries series = series(Frequency.DAILY, 1).build();
+
+		assertThat(Recurrences.occurrences(series, FIRST.plusMinutes(1), FIRST.plusDays(2)))
+				.containsExactly(FIRST.plusDays(1));
+		assertThat(Recurrences.occurrences(series, FIRST, FIRST.plusDays(1))).containsExactly(FIRST);
+	}
+
+	@Test
+	void weeklyDefaultsToTheDayOfTheFirstOccurrence() {
+		LessonSeries series = series(Frequency.WEEKLY, 1).build();
+
+		assertThat(Recurrences.occurrences(series, FIRST, FIRST.plusWeeks(3)))
+				.containsExactly(FIRST, FIRST.plusWeeks(1), FIRST.plusWeeks(2));
+		assertThat(Recurrences.days(series)).containsExactly(DayOfWeek.WEDNESDAY);
+	}
+
+	@Test
+	void weeklyOnSeveralDaysSkipsDaysBeforeTheFirstOccurrence() {
+		LessonSeries series = series(Frequency.WEEKLY, 1)
+				.byDays(Recurrences.byDays(List.of(DayOfWeek.FRIDAY, DayOfWeek.MONDAY)))
+				.build();
+
+		// starts on a Wednesday, so that week's Monday is not part of the series
+		assertThat(Recurrences.occurrences(series, FIRST.minusDays(2), FIRST.plusDays(13)))
+				.containsExactly(on(2025, 6, 6), on(2025, 6, 9), on(2025, 6, 13), on(2025, 6, 16));
+	}
+
+	@Test
+	void weeklyIntervalSkipsWeeks() {
+		LessonSeries series = series(Frequency.WEEKLY, 2)
+				.byDays("WEDNESDAY,THURSDAY")
+				.build();
+
+		assertThat(Recurrences.occurrences(series, FIRST, FIRST.plusWeeks(5)))
+				.containsExactly(FIRST, FIRST.plusDays(1), FIRST.plusWeeks(2), FIRST.plusWeeks(2).plusDays(1),
+						FIRST.plusWeeks(4), FIRST.plusWeeks(4).plusDays(1));
+	}
+
+	@Test
+	void untilDateIsInclusive() {
+		LessonSeries series = series(Frequency.DAILY, 1)
+				.untilDate(FIRST.toLocalDate().plusDays(2))
+				.build();
+
+		assertThat(Recurrences.occurrences(series, FIRST, FIRST.plusDays(10)))
+				.containsExactly(FIRST, FIRST.plusDays(1), FIRST.plusDays(2));
+	}
+
+	@Test
+	void countLimitsDailyOccurrences() {
+		LessonSeries series = series(Frequency.DAILY, 2).occurrenceCount(3).build();
+
+		assertThat(Recurrences.occurrences(series, FIRST, FIRST.plusDays(20)))
+				.containsExactly(FIRST, FIRST.plusDays(2), FIRST.plusDays(4));
+	}
+
+	@Test
+	void countLimitsWeeklyOccurrencesInAWindowFarFromTheStart() {
+		// Wed, Fri every week: occurrence #5 (zero-based 4) is Wed 18 June, #6 Fri 20 June
+		LessonSeries series = series(Frequency.WEEKLY, 1)
+				.byDays("WEDNESDAY,FRIDAY")
+				.occurrenceCount(6)
+				.build();
+
+		assertThat(Recurrences.occurrences(series, FIRST.plusWeeks(2), FIRST.plusWeeks(5)))
+				.containsExactly(on(2025, 6, 18), on(2025, 6, 20));
+	}
+
+	@Test
+	void cancelledOccurrencesAreLeftOut() {
+		LessonSeries series = series(Frequency.DAILY, 1)
+				.cancelledStarts(Set.of(FIRST.plusDays(1)))
+				.build();
+
+		assertThat(Recurrences.occurrences(series, FIRST, FIRST.plusDays(3)))
+				.containsExactly(FIRST, FIRST.plusDays(2));
+	}
+
+	@Test
+	void cancelledOccurrencesStillCountTowardsTheLimit() {
+		LessonSeries series = series(Frequency.DAILY, 1)
+				.occurrenceCount(3)
+				.cancelledStarts(Set.of(FIRST.plusDays(1)))
+				.build();
+
+		assertThat(Recurrences.occurrences(series, FIRST, FIRST.plusDays(10)))
+				.containsExactly(FIRST, FIRST.plusDays(2));
+	}
+
+	@Test
+	void seriesWithAnUntilDateEndsBeforeTheDayAfter() {
+		LessonSeries series = series(Frequency.WEEKLY, 1).untilDate(FIRST.toLocalDate().plusWeeks(4)).build();
+
+		assertThat(Recurrences.endsBefore(series, FIRST.plusWeeks(4).plusMinutes(1))).isTrue();
+		assertThat(Recurrences.endsBefore(series, FIRST.plusWeeks(4))).isFalse();
+	}
+
+	@Test
+	void countedSeriesEndsAfterItsLastOccurrence() {
+		// Wed, Fri every week: the sixth occurrence is Fri 20 June
+		LessonSeries series = series(Frequency.WEEKLY, 1).byDays("WEDNESDAY,FRIDAY").occurrenceCount(6).build();
+
+		assertThat(Recurrences.endsBefore(series, on(2025, 6, 20).plusMinutes(1))).isTrue();
+		assertThat(Recurrences.endsBefore(series, on(2025, 6, 20))).isFalse();
+	}
+
+	@Test
+	void openEndedSeriesNeverEnds() {
+		LessonSeries series = series(Frequency.DAILY, 1).build();
+
+		assertThat(Recurrences.endsBefore(series, FIRST.plusYears(10))).isFalse();
+	}
+
+	@Test
+	void byDaysRoundTripsInWeekOrder() {
+		assertThat(Recurrences.byDays(List.of(DayOfWeek.FRIDAY, DayOfWeek.MONDAY))).isEqualTo("MONDAY,FRIDAY");
+		assertThat(Recurrences.byDays(List.of())).isNull();
+	}
+
+	private static LessonSeries.LessonSeriesBuilder series(Frequency frequency, int interval) {
+		return LessonSeries.builder()
+				.title("Series")
+				.startTime(FIRST)
+				.endTime(FIRST.plusHours(1))
+				.frequency(frequency)
+				.intervalCount(interval);
+	}
+
+	private static LocalDateTime on(int year, int month, int day) {
+		return LocalDate.of(year, month, day).atTime(LocalTime.of(9, 0));
+	}
+}
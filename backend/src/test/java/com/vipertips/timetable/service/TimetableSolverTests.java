@@ -0,0 +1,193 @@
+package com.vipertips.timetable.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+class TimetableSolverTests {
+
+	private final ExecutorService pool = Executors.newFixedThreadPool(4);
+
+	@AfterEach
+	void tearDown() {
+		pool.shutdownNow();
+	}
+
+	@Test
+	void solvesASmallFeasibleSchool() throws InterruptedException {
+		// 2 groups x 2 subjects x 4h, two teachers per subject, 5 days x 4 periods, one room
+		TimetableSolver.Problem problem = school(5, 4, 2, 2, 2, 1, 4);
+
+		TimetableSolver.Solution solution = new TimetableSolver(problem, pool, 2).solve(5000, (best, iterations) -> {
+		});
+
+		assertThat(solution.hard()).isZero();
+		assertThat(score(problem, solution)).containsExactly(solution.hard(), solution.soft());
+	}
+
+	@Test
+	void reportsWhatIsLeftOnAnInfeasibleSchool() throws InterruptedException {
+		// one teacher for 6 lessons, but only available in 4 of the periods
+		TimetableSolver.Problem problem = school(2, 4, 1, 1, 1, 1, 6);
+		for (int p = 4; p < problem.periods; p++) {
+			problem.teacherAllowed[0][p] = false;
+		}
+
+		TimetableSolver.Solution solution = new TimetableSolver(problem, pool, 2).solve(300, (best, iterations) -> {
+		});
+
+		assertThat(solution.hard()).isEqualTo(2);
+		assertThat(score(problem, solution)).containsExactly(solution.hard(), solution.soft());
+	}
+
+	@Test
+	void solvesASixtyTeacherSchoolInSeconds() throws InterruptedException {
+		// 30 groups x 10 subjects x 3h = 900 lessons, 6 teachers per subject, 5 days x 8 periods, 30 rooms
+		TimetableSolver.Problem problem = school(5, 8, 30, 10, 6, 30, 3);
+		// every teacher has one day off
+		for (int t = 0; t < problem.teachers; t++) {
+			for (int p = 0; p < problem.periods; p++) {
+				problem.teacherAllowed[t][p] = problem.periodDay[p] != t % problem.days;
+			}
+		}
+		long started = System.nanoTime();
+		AtomicLong conflictFreeAfter = new AtomicLong(-1);
+
+		TimetableSolver.Solution solution = new TimetableSolver(problem, pool, 4).solve(20000, (best, iterations) -> {
+			if (best.hard() == 0) {
+				conflictFreeAfter.compareAndSet(-1, (System.nanoTime() - started) / 1_000_000);
+			}
+		});
+
+		assertThat(solution.hard()).isZero();
+		assertThat(conflictFreeAfter.get()).isBetween(0L, 10000L);
+		assertThat(score(problem, solution)).containsExactly(solution.hard(), solution.soft());
+	}
+
+	@Test
+	void progressNeverGoesBackToAWorseSolution() throws InterruptedException {
+		TimetableSolver.Problem problem = school(5, 8, 30, 10, 6, 30, 3);
+		List<Long> reported = new ArrayList<>();
+
+		new TimetableSolver(problem, pool, 4).solve(1000, (best, iterations) -> reported.add(best.cost()));
+
+		assertThat(reported).isNotEmpty().isSortedAccordingTo((a, b) -> Long.compare(b, a));
+	}
+
+	@Test
+	void costComparesHardViolationsFirst() {
+		assertThat(TimetableSolver.cost(1, 0)).isGreaterThan(TimetableSolver.cost(0, 5000));
+		assertThat(TimetableSolver.cost(2, 0)).isGreaterThan(TimetableSolver.cost(1, 100_000));
+		assertThat(TimetableSolver.cost(0, 3)).isGreaterThan(TimetableSolver.cost(0, 2));
+	}
+
+	@Test
+	void movesKeepTheScoreInStepAndUndoRestoresTheState() {
+		TimetableSolver.Problem problem = school(3, 4, 4, 3, 2, 2, 3);
+		for (int p = 0; p < problem.periods; p += 3) {
+			problem.teacherAllowed[p % problem.teachers][p] = false;
+		}
+		TimetableSolver solver = new TimetableSolver(problem, pool, 1);
+		TimetableSolver.State state = solver.new State(new SplittableRandom(42));
+		state.construct();
+		SplittableRandom keep = new SplittableRandom(7);
+
+		for (int i = 0; i < 20000; i++) {
+			TimetableSolver.Solution before = state.snapshot();
+			long cost = state.tryMove();
+			TimetableSolver.Solution after = state.snapshot();
+			assertThat(score(problem, after)).containsExactly(after.hard(), after.soft());
+			assertThat(cost).isEqualTo(after.cost());
+			if (keep.nextBoolean()) {
+				state.undo();
+				TimetableSolver.Solution undone = state.snapshot();
+				assertThat(undone.unitPeriod()).isEqualTo(before.unitPeriod());
+				assertThat(undone.reqTeacher()).isEqualTo(before.reqTeacher());
+				assertThat(undone.hard()).isEqualTo(before.hard());
+				assertThat(undone.soft()).isEqualTo(before.soft());
+			}
+		}
+	}
+
+	/**
+	 * {@code groups} groups each need every one of {@code subjects} subjects for {@code hours} hours a
+	 * week; each subject has {@code teachersPerSubject} teachers, teacher t teaching subject t / teachersPerSubject.
+	 */
+	private static TimetableSolver.Problem school(int days, int periodsPerDay, int groups, int subjects,
+			int teachersPerSubject, int rooms, int hours) {
+		TimetableSolver.Problem problem = new TimetableSolver.Problem();
+		problem.days = days;
+		problem.periods = days * periodsPerDay;
+		problem.periodDay = new int[problem.periods];
+		for (int p = 0; p < problem.periods; p++) {
+			problem.periodDay[p] = p / periodsPerDay;
+		}
+		problem.teachers = subjects * teachersPerSubject;
+		problem.teacherAllowed = new boolean[problem.teachers][problem.periods];
+		for (boolean[] allowed : problem.teacherAllowed) {
+			Arrays.fill(allowed, true);
+		}
+		problem.groups = groups;
+		problem.rooms = rooms;
+		int requirements = groups * subjects;
+		problem.reqGroup = new int[requirements];
+		problem.reqHours = new int[requirements];
+		problem.reqEligible = new int[requirements][];
+		for (int r = 0; r < requirements; r++) {
+			int subject = r % subjects;
+			problem.reqGroup[r] = r / subjects;
+			problem.reqHours[r] = hours;
+			problem.reqEligible[r] = new int[teachersPerSubject];
+			for (int i = 0; i < teachersPerSubject; i++) {
+				problem.reqEligible[r][i] = subject * teachersPerSubject + i;
+			}
+		}
+		return problem;
+	}
+
+	// scores a solution from scratch, independently of the solver's incremental bookkeeping
+	private static int[] score(TimetableSolver.Problem problem, TimetableSolver.Solution solution) {
+		int[][] teacherLoad = new int[problem.teachers][problem.periods];
+		int[][] groupLoad = new int[problem.groups][problem.periods];
+		int[] periodLoad = new int[problem.periods];
+		int[][] reqDayLoad = new int[problem.reqHours.length][problem.days];
+		int hard = 0;
+		for (int u = 0; u < solution.unitPeriod().length; u++) {
+			int p = solution.unitPeriod()[u];
+			int r = solution.unitReq()[u];
+			int t = solution.reqTeacher()[r];
+			teacherLoad[t][p]++;
+			groupLoad[problem.reqGroup[r]][p]++;
+			periodLoad[p]++;
+			reqDayLoad[r][problem.periodDay[p]]++;
+			if (!problem.teacherAllowed[t][p]) {
+				hard++;
+			}
+		}
+		for (int p = 0; p < problem.periods; p++) {
+			for (int[] load : teacherLoad) {
+				hard += Math.max(0, load[p] - 1);
+			}
+			for (int[] load : groupLoad) {
+				hard += Math.max(0, load[p] - 1);
+			}
+			hard += Math.max(0, periodLoad[p] - problem.rooms);
+		}
+		int soft = 0;
+		for (int[] load : reqDayLoad) {
+			for (int count : load) {
+				soft += Math.max(0, count - 1);
+			}
+		}
+		return new int[] { hard, soft };
+	}
+}